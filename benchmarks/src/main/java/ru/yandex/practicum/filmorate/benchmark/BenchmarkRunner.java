@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Запуск бенчмарков с аргументами JMH (java -jar benchmarks.jar -h). Если формат результата не задан (-rf),
+ * результаты пишутся в JSON-файл jmh-result-&lt;дата-время&gt;.json, который можно сравнить с прошлым запуском
+ */
+public class BenchmarkRunner {
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+            if (!commandLine.getResult().hasValue()) {
+                options.result("jmh-result-" + LocalDateTime.now().format(FILE_TIME_FORMAT) + ".json");
+            }
+        }
+        new Runner(options.build()).run();
+    }
+}
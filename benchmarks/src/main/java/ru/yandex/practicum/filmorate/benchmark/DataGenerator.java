@@ -0,0 +1,332 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Наполняет пустую базу приложения данными, похожими на рабочие: число друзей и лайков у пользователей
+ * распределено степенно, друзья и фильмы выбираются по закону Ципфа, так что есть очень популярные
+ * пользователи и фильмы. Строки пишутся пачками напрямую в таблицы, минуя приложение.
+ * <p>
+ * Запуск: java -cp benchmarks.jar ru.yandex.practicum.filmorate.benchmark.DataGenerator users=1000000 films=100000
+ * <p>
+ * Параметры (по умолчанию): url (база приложения jdbc:h2:file:./db/filmorate), user (sa), password (password),
+ * users (100000), films (10000), avg-friends (20), avg-likes (30), zipf (1.0), seed (1),
+ * target (версия схемы, до которой применяются миграции, по умолчанию последняя),
+ * explain (false - после наполнения вывести планы и время запросов к таблицам связей), explain-runs (1000)
+ * <p>
+ * Сравнение планов до и после V3 на одних и тех же данных:
+ * java -cp benchmarks.jar ru.yandex.practicum.filmorate.benchmark.DataGenerator url=jdbc:h2:mem:plans target=2 explain=true
+ * java -cp benchmarks.jar ru.yandex.practicum.filmorate.benchmark.DataGenerator url=jdbc:h2:mem:plans explain=true
+ */
+public class DataGenerator {
+    private static final int BATCH_SIZE = 10000;
+    private static final double PARETO_ALPHA = 2;
+    private static final int MAX_GENRES_PER_FILM = 3;
+    // Запросы к таблицам связей, которые приложение делает с обеих сторон
+    private static final Map<String, String> JOIN_QUERIES = new LinkedHashMap<>();
+    private static final Pattern PARAMETER = Pattern.compile("(\\w+) = \\?");
+
+    static {
+        JOIN_QUERIES.put("жанры фильма", "SELECT genre_id FROM film_genres WHERE film_id = ?");
+        JOIN_QUERIES.put("фильмы жанра", "SELECT film_id FROM film_genres WHERE genre_id = ? LIMIT 100");
+        JOIN_QUERIES.put("лайки фильма", "SELECT user_id FROM favorite_films WHERE film_id = ?");
+        JOIN_QUERIES.put("лайки пользователя", "SELECT film_id FROM favorite_films WHERE user_id = ?");
+        JOIN_QUERIES.put("есть ли лайк", "SELECT 1 FROM favorite_films WHERE film_id = ? AND user_id = ?");
+        JOIN_QUERIES.put("друзья пользователя",
+                "SELECT user_right_id FROM friendships WHERE user_left_id = ? ORDER BY user_right_id");
+        JOIN_QUERIES.put("кто добавил в друзья", "SELECT user_left_id FROM friendships WHERE user_right_id = ?");
+    }
+
+
+    private final Map<String, String> options;
+    private final Random random;
+    private final int users;
+    private final int films;
+
+    private DataGenerator(Map<String, String> options) {
+        this.options = options;
+        this.random = new Random(Long.parseLong(option("seed", "1")));
+        this.users = Integer.parseInt(option("users", "100000"));
+        this.films = Integer.parseInt(option("films", "10000"));
+    }
+
+    public static void main(String[] args) throws SQLException {
+        new DataGenerator(parseOptions(args)).run();
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Параметр должен иметь вид имя=значение: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private void run() throws SQLException {
+        JdbcConnectionPool pool = JdbcConnectionPool.create(option("url", "jdbc:h2:file:./db/filmorate"),
+                option("user", "sa"), option("password", "password"));
+        try {
+            Flyway.configure().dataSource(pool).baselineOnMigrate(true).baselineVersion("1")
+                    .target(option("target", "latest")).load().migrate();
+            try (Connection connection = pool.getConnection()) {
+                connection.setAutoCommit(false);
+                requireEmpty(connection);
+                long started = System.nanoTime();
+                insertUsers(connection);
+                insertFilms(connection);
+                long friendships = insertFriendships(connection);
+                long likes = insertLikes(connection);
+                System.out.printf("Пользователей: %d, фильмов: %d, дружб: %d, лайков: %d, за %d с%n",
+                        users, films, friendships, likes,
+                        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+                if (Boolean.parseBoolean(option("explain", "false"))) {
+                    reportJoinQueries(connection);
+                }
+            }
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    private void requireEmpty(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT (SELECT COUNT(*) FROM film) + (SELECT COUNT(*) FROM film_user)")) {
+            rs.next();
+            if (rs.getLong(1) > 0) {
+                throw new IllegalStateException("В базе уже есть фильмы или пользователи, нужна пустая база");
+            }
+        }
+    }
+
+    private void insertUsers(Connection connection) throws SQLException {
+        String sql = "INSERT INTO film_user (user_id, name, email, login, birth_date) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int id = 1; id <= users; id++) {
+                ps.setInt(1, id);
+                ps.setString(2, "Пользователь " + id);
+                ps.setString(3, "user" + id + "@mail.com");
+                ps.setString(4, "user" + id);
+                ps.setDate(5, Date.valueOf(LocalDate.of(1960, 1, 1).plusDays(random.nextInt(20000))));
+                addToBatch(connection, ps, id);
+            }
+            executeBatch(connection, ps);
+        }
+        restartIdentity(connection, "film_user", "user_id", users);
+    }
+
+    private void insertFilms(Connection connection) throws SQLException {
+        String filmSql = "INSERT INTO film (film_id, name, mpa_id, description, release_date, duration) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+        String genreSql = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
+        try (PreparedStatement film = connection.prepareStatement(filmSql);
+             PreparedStatement genre = connection.prepareStatement(genreSql)) {
+            for (int id = 1; id <= films; id++) {
+                film.setInt(1, id);
+                film.setString(2, "Фильм " + id);
+                film.setInt(3, random.nextInt(5) + 1);
+                film.setString(4, "Описание фильма " + id);
+                film.setDate(5, Date.valueOf(LocalDate.of(1930, 1, 1).plusDays(random.nextInt(33000))));
+                film.setLong(6, 60 + random.nextInt(120));
+                film.addBatch();
+                int firstGenre = random.nextInt(DataSeeder.GENRES);
+                int genres = random.nextInt(MAX_GENRES_PER_FILM) + 1;
+                for (int i = 0; i < genres; i++) {
+                    genre.setInt(1, id);
+                    genre.setInt(2, (firstGenre + i) % DataSeeder.GENRES + 1);
+                    genre.addBatch();
+                }
+                if (id % BATCH_SIZE == 0) {
+                    film.executeBatch();
+                    genre.executeBatch();
+                    connection.commit();
+                }
+            }
+            film.executeBatch();
+            genre.executeBatch();
+            connection.commit();
+        }
+        restartIdentity(connection, "film", "film_id", films);
+    }
+
+    /**
+     * Каждый пользователь добавляет в друзья степенно распределенное число пользователей, выбранных по Ципфу:
+     * у пользователей с малыми ИД друзей-поклонников особенно много
+     */
+    private long insertFriendships(Connection connection) throws SQLException {
+        double averageFriends = Double.parseDouble(option("avg-friends", "20"));
+        ZipfSampler targets = new ZipfSampler(users, Double.parseDouble(option("zipf", "1.0")));
+        String sql = "INSERT INTO friendships (user_left_id, user_right_id) VALUES (?, ?)";
+        long rows = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int userId = 1; userId <= users; userId++) {
+                int degree = ZipfSampler.pareto(random, averageFriends, PARETO_ALPHA, users - 1);
+                for (int friendId : pick(targets, degree, userId)) {
+                    ps.setInt(1, userId);
+                    ps.setInt(2, friendId);
+                    addToBatch(connection, ps, ++rows);
+                }
+            }
+            executeBatch(connection, ps);
+        }
+        return rows;
+    }
+
+    /**
+     * Лайки: число у пользователя распределено степенно, фильмы выбираются по Ципфу.
+     * Счетчики лайков фильмов считаются здесь же и записываются одним проходом в конце
+     */
+    private long insertLikes(Connection connection) throws SQLException {
+        double averageLikes = Double.parseDouble(option("avg-likes", "30"));
+        ZipfSampler filmSampler = new ZipfSampler(films, Double.parseDouble(option("zipf", "1.0")));
+        int[] likesCounts = new int[films + 1];
+        String sql = "INSERT INTO favorite_films (film_id, user_id) VALUES (?, ?)";
+        long rows = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int userId = 1; userId <= users; userId++) {
+                int count = ZipfSampler.pareto(random, averageLikes, PARETO_ALPHA, films);
+                for (int filmId : pick(filmSampler, count, 0)) {
+                    ps.setInt(1, filmId);
+                    ps.setInt(2, userId);
+                    likesCounts[filmId]++;
+                    addToBatch(connection, ps, ++rows);
+                }
+            }
+            executeBatch(connection, ps);
+        }
+        try (PreparedStatement ps = connection.prepareStatement("UPDATE film SET likes_count = ? WHERE film_id = ?")) {
+            for (int filmId = 1; filmId <= films; filmId++) {
+                ps.setInt(1, likesCounts[filmId]);
+                ps.setInt(2, filmId);
+                addToBatch(connection, ps, filmId);
+            }
+            executeBatch(connection, ps);
+        }
+        return rows;
+    }
+
+    /**
+     * Для каждого запроса к таблицам связей выводит план H2 и среднее время выполнения по explain-runs случайным ИД.
+     * ИД берутся из отдельного генератора, поэтому запуски с разным target получают одинаковые параметры
+     */
+    private void reportJoinQueries(Connection connection) throws SQLException {
+        int runs = Integer.parseInt(option("explain-runs", "1000"));
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(\"version\") FROM \"flyway_schema_history\"")) {
+            rs.next();
+            System.out.printf("Версия схемы: %s%n", rs.getString(1));
+        }
+        for (Map.Entry<String, String> query : JOIN_QUERIES.entrySet()) {
+            String sql = query.getValue();
+            Random params = new Random(Long.parseLong(option("seed", "1")));
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                bindIds(explain, sql, params);
+                try (ResultSet rs = explain.executeQuery()) {
+                    rs.next();
+                    System.out.printf("%s: %s%n", query.getKey(), rs.getString(1).replaceAll("\\s+", " "));
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                // Первый проход прогревает JIT и кэш страниц, время считается по второму
+                executeRuns(ps, sql, params, runs);
+                long started = System.nanoTime();
+                long rows = executeRuns(ps, sql, params, runs);
+                System.out.printf("%s: %.1f мкс на запрос, %.1f строк в среднем%n", query.getKey(),
+                        (System.nanoTime() - started) / 1000.0 / runs, (double) rows / runs);
+            }
+        }
+    }
+
+    private long executeRuns(PreparedStatement ps, String sql, Random params, int runs) throws SQLException {
+        long rows = 0;
+        for (int i = 0; i < runs; i++) {
+            bindIds(ps, sql, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Параметры подставляются по колонкам условия вида "колонка = ?"
+    private void bindIds(PreparedStatement ps, String sql, Random params) throws SQLException {
+        Matcher matcher = PARAMETER.matcher(sql);
+        for (int index = 1; matcher.find(); index++) {
+            switch (matcher.group(1)) {
+                case "film_id":
+                    ps.setInt(index, params.nextInt(films) + 1);
+                    break;
+                case "genre_id":
+                    ps.setInt(index, params.nextInt(DataSeeder.GENRES) + 1);
+                    break;
+                default:
+                    ps.setInt(index, params.nextInt(users) + 1);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Разные номера по распределению sampler, кроме excluded. Попыток ограниченное число:
+     * при сильном перекосе нужное количество разных номеров может долго не набираться
+     */
+    private Set<Integer> pick(ZipfSampler sampler, int count, int excluded) {
+        Set<Integer> picked = new HashSet<>();
+        for (int attempt = 0; attempt < count * 4 && picked.size() < count; attempt++) {
+            int value = sampler.next(random);
+            if (value != excluded) {
+                picked.add(value);
+            }
+        }
+        return picked;
+    }
+
+    private static void addToBatch(Connection connection, PreparedStatement ps, long row) throws SQLException {
+        ps.addBatch();
+        if (row % BATCH_SIZE == 0) {
+            executeBatch(connection, ps);
+        }
+    }
+
+    private static void executeBatch(Connection connection, PreparedStatement ps) throws SQLException {
+        ps.executeBatch();
+        connection.commit();
+    }
+
+    // ИД вставлены явно, поэтому счетчик автоинкремента надо сдвинуть за них, иначе приложение выдаст занятый ИД
+    private static void restartIdentity(Connection connection, String table, String column, int lastId)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " RESTART WITH " + (lastId + 1));
+        }
+        connection.commit();
+    }
+}
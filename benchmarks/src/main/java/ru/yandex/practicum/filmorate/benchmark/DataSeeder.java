@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Наполнение хранилищ через их же методы. ИД в обоих видах хранилищ выдаются подряд с 1,
+ * поэтому фильмы и пользователи дальше выбираются по номеру. Случайность с фиксированным seed:
+ * повторный запуск строит те же данные
+ */
+public final class DataSeeder {
+    // Жанров в справочнике 6, рейтингов 5 (миграция R__reference_data.sql)
+    public static final int GENRES = 6;
+    private static final int MPA = 5;
+    private static final int LIKES_BATCH_SIZE = 1000;
+
+    private DataSeeder() {
+    }
+
+    public static Film film(int number, int genres) {
+        List<Genre> filmGenres = new ArrayList<>(genres);
+        for (int i = 0; i < genres; i++) {
+            filmGenres.add(Genre.builder().id((number + i) % GENRES + 1).build());
+        }
+        return Film.builder()
+                .name("Фильм " + number)
+                .description("Описание фильма " + number)
+                .mpa(Mpa.builder().id(number % MPA + 1).build())
+                .genres(filmGenres)
+                .releaseDate(LocalDate.of(1950, 1, 1).plusDays(number % 25000))
+                .duration(60 + number % 120)
+                .build();
+    }
+
+    public static User user(int number) {
+        return User.builder()
+                .name("Пользователь " + number)
+                .login("user" + number)
+                .email("user" + number + "@mail.com")
+                .birthday(LocalDate.of(1970, 1, 1).plusDays(number % 15000))
+                .build();
+    }
+
+    public static void films(FilmStorage storage, int count, int genres) {
+        for (int i = 0; i < count; i++) {
+            storage.create(film(i, genres));
+        }
+    }
+
+    public static void users(UserStorage storage, int count) {
+        for (int i = 0; i < count; i++) {
+            storage.create(user(i));
+        }
+    }
+
+    /**
+     * Каждый пользователь лайкает likesPerUser разных фильмов. Квадрат равномерной величины сдвигает выбор
+     * к фильмам с малыми ИД: у популярных фильмов лайков заметно больше, чем у остальных
+     */
+    public static void likes(FilmStorage storage, int users, int films, int likesPerUser, long seed) {
+        Random random = new Random(seed);
+        List<Like> batch = new ArrayList<>(LIKES_BATCH_SIZE);
+        int perUser = Math.min(likesPerUser, films);
+        for (int userId = 1; userId <= users; userId++) {
+            Set<Integer> filmIds = new HashSet<>();
+            while (filmIds.size() < perUser) {
+                double r = random.nextDouble();
+                filmIds.add((int) (r * r * films) + 1);
+            }
+            for (Integer filmId : filmIds) {
+                batch.add(Like.builder().userId(userId).filmId(filmId).build());
+                if (batch.size() == LIKES_BATCH_SIZE) {
+                    storage.addUserLikesToFilms(batch);
+                    batch = new ArrayList<>(LIKES_BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            storage.addUserLikesToFilms(batch);
+        }
+    }
+
+    /**
+     * Каждый пользователь добавляет в друзья friendsPerUser случайных пользователей, дружба записывается
+     * в обе стороны
+     */
+    public static void friendships(UserStorage storage, int users, int friendsPerUser, long seed) {
+        Random random = new Random(seed);
+        for (int userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < friendsPerUser; i++) {
+                int friendId = random.nextInt(users) + 1;
+                if (friendId != userId) {
+                    storage.addFriendship(userId, friendId);
+                    storage.addFriendship(friendId, userId);
+                }
+            }
+        }
+    }
+}
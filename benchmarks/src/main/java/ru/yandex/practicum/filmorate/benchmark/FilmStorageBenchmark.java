@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение фильмов: по ИД, все фильмы и популярные фильмы, в базе и в памяти
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+    @Param({StorageFixture.DB, StorageFixture.IN_MEMORY})
+    private String storage;
+    @Param("10000")
+    private int films;
+    @Param("1000")
+    private int users;
+    @Param("20")
+    private int likesPerUser;
+    @Param("2")
+    private int genresPerFilm;
+    @Param("10")
+    private int popularCount;
+
+    private StorageFixture fixture;
+    private FilmStorage filmStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = StorageFixture.create(storage);
+        filmStorage = fixture.getFilmStorage();
+        DataSeeder.films(filmStorage, films, genresPerFilm);
+        DataSeeder.users(fixture.getUserStorage(), users);
+        DataSeeder.likes(filmStorage, users, films, likesPerUser, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Optional<Film> getById() {
+        return filmStorage.getById(ThreadLocalRandom.current().nextInt(films) + 1);
+    }
+
+    @Benchmark
+    public List<Film> findAll() {
+        return filmStorage.findAll();
+    }
+
+    @Benchmark
+    public List<Film> getFilmsByLikes() {
+        return filmStorage.getFilmsByLikes(0, popularCount);
+    }
+}
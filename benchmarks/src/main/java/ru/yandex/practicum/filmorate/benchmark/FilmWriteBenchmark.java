@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание фильма и изменение фильма с теми же жанрами в базе, по числу жанров у фильма
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmWriteBenchmark {
+    // В справочнике всего 6 жанров
+    @Param({"1", "3", "6"})
+    private int genresPerFilm;
+    @Param("1000")
+    private int films;
+
+    private StorageFixture fixture;
+    private FilmStorage filmStorage;
+    private int created;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = StorageFixture.database();
+        filmStorage = fixture.getFilmStorage();
+        DataSeeder.films(filmStorage, films, genresPerFilm);
+        created = films;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Film create() {
+        return filmStorage.create(DataSeeder.film(created++, genresPerFilm));
+    }
+
+    @Benchmark
+    public Film updateWithSameGenres() {
+        int number = ThreadLocalRandom.current().nextInt(films);
+        Film film = DataSeeder.film(number, genresPerFilm).toBuilder()
+                .id(number + 1)
+                .description("Новое описание " + System.nanoTime() % 1000)
+                .build();
+        return filmStorage.update(film);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена журнала HTTP-запросов Logbook на запрос: GET /films и GET /films/{id} к приложению в этом же процессе.
+ * Режимы: off - журнал выключен, sync - все запросы с телами пишутся в потоке запроса, async - то же
+ * в отдельном потоке, configured - настройки приложения по умолчанию (частые GET не пишутся).
+ * Журнал пишется в benchmarks/target/http-log.log
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HttpLoggingBenchmark {
+    @Param({"off", "sync", "async", "configured"})
+    private String logging;
+    @Param({"10", "1000"})
+    private int films;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ConfigurableApplicationContext context;
+    private HttpRequest listRequest;
+    private HttpRequest filmRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--spring.datasource.url=jdbc:h2:mem:http-logging;DB_CLOSE_DELAY=-1");
+        args.add("--logging.level.org.zalando.logbook=" + ("off".equals(logging) ? "OFF" : "TRACE"));
+        if ("sync".equals(logging) || "async".equals(logging)) {
+            args.add("--filmorate.http-log.exclude-get=");
+            args.add("--filmorate.http-log.sample-rate=1.0");
+            args.add("--logbook.write.max-body-size=-1");
+            args.add("--filmorate.http-log.async.enabled=" + "async".equals(logging));
+        }
+        context = SpringApplication.run(FilmorateApplication.class, args.toArray(new String[0]));
+        DataSeeder.films(context.getBean(FilmStorage.class), films, 2);
+        String target = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        listRequest = HttpRequest.newBuilder(URI.create(target + "/films")).build();
+        filmRequest = HttpRequest.newBuilder(URI.create(target + "/films/1")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] getFilms() throws IOException, InterruptedException {
+        return client.send(listRequest, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public byte[] getFilm() throws IOException, InterruptedException {
+        return client.send(filmRequest, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFriendsStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryJournal;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryPersistence;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время восстановления хранилищ в памяти при старте (профиль inmemory) из снимка на films фильмов
+ * и users * likesPerUser лайков. По умолчанию 1M фильмов и 10M лайков, меньший объем: -p films=100000 -p users=10000
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class InMemoryRecoveryBenchmark {
+    @Param("1000000")
+    private int films;
+    @Param("100000")
+    private int users;
+    @Param("100")
+    private int likesPerUser;
+
+    private Path directory;
+
+    private static class Stores {
+        private final InMemoryJournal journal;
+        private final InMemoryLikeStorage likeStorage;
+        private final InMemoryFilmStorage filmStorage;
+        private final InMemoryUserStorage userStorage;
+        private final InMemoryPersistence persistence;
+
+        private Stores(Path directory) {
+            journal = new InMemoryJournal(true, directory.toString());
+            likeStorage = new InMemoryLikeStorage(journal);
+            InMemoryFriendsStorage friendsStorage = new InMemoryFriendsStorage(journal);
+            filmStorage = new InMemoryFilmStorage(likeStorage, journal, null);
+            userStorage = new InMemoryUserStorage(likeStorage, friendsStorage, journal);
+            // Снимки по расписанию не нужны, снимок пишется вызовом snapshot()
+            persistence = new InMemoryPersistence(journal, filmStorage, userStorage, likeStorage, friendsStorage,
+                    Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Данные кладутся в хранилища до открытия журнала, поэтому в журнал они не пишутся, а сразу попадают в снимок
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("filmorate-recovery");
+        Stores stores = new Stores(directory);
+        DataSeeder.films(stores.filmStorage, films, 2);
+        DataSeeder.users(stores.userStorage, users);
+        DataSeeder.likes(stores.filmStorage, users, films, likesPerUser, 1);
+        stores.journal.open(0);
+        stores.persistence.snapshot();
+        stores.journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public InMemoryLikeStorage recover() throws IOException, InterruptedException {
+        Stores stores = new Stores(directory);
+        stores.persistence.start();
+        stores.persistence.stop();
+        stores.journal.close();
+        return stores.likeStorage;
+    }
+}
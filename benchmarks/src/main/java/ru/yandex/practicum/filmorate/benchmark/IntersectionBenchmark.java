@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.util.IntHashSet;
+import ru.yandex.practicum.filmorate.util.IntSetIntersection;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пересечение списков друзей разного размера: у обычного пользователя десятки друзей, у популярного - тысячи.
+ * Размеры пары задаются как "меньший:больший", ИД выбираются из userCount пользователей
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntersectionBenchmark {
+    @Param({"50:50", "50:5000", "1000:1000", "1000:100000"})
+    private String sizes;
+    @Param("1000000")
+    private int userCount;
+
+    private int[] smallArray;
+    private int[] largeArray;
+    private IntHashSet smallSet;
+    private IntHashSet largeSet;
+    private BitSet smallBits;
+    private BitSet largeBits;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = sizes.split(":");
+        Random random = new Random(1);
+        smallSet = randomSet(random, Integer.parseInt(parts[0]));
+        largeSet = randomSet(random, Integer.parseInt(parts[1]));
+        smallArray = smallSet.toSortedArray();
+        largeArray = largeSet.toSortedArray();
+        smallBits = IntSetIntersection.toBitSet(smallSet);
+        largeBits = IntSetIntersection.toBitSet(largeSet);
+    }
+
+    private IntHashSet randomSet(Random random, int size) {
+        IntHashSet set = new IntHashSet(size);
+        while (set.size() < size) {
+            set.add(random.nextInt(userCount) + 1);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public int[] sortedArrays() {
+        return IntSetIntersection.intersect(smallArray, largeArray);
+    }
+
+    @Benchmark
+    public int[] hashSets() {
+        return IntSetIntersection.intersect(smallSet, largeSet);
+    }
+
+    @Benchmark
+    public int[] bitSets() {
+        return IntSetIntersection.intersect(smallBits, largeBits);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Сериализация списка фильмов в JSON с настройками Spring Boot по умолчанию, как в ответе GET /films
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"10", "1000"})
+    private int films;
+    @Param("2")
+    private int genresPerFilm;
+
+    private ObjectMapper objectMapper;
+    private List<Film> filmList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        filmList = new ArrayList<>(films);
+        for (int i = 0; i < films; i++) {
+            Film film = DataSeeder.film(i, genresPerFilm);
+            // Так фильм выглядит после чтения из хранилища: с ИД и названиями рейтинга и жанров
+            filmList.add(film.toBuilder()
+                    .id(i + 1)
+                    .mpa(Mpa.builder().id(film.getMpa().getId()).name("PG-13").build())
+                    .genres(film.getGenres().stream()
+                            .map(genre -> Genre.builder().id(genre.getId()).name("Жанр " + genre.getId()).build())
+                            .collect(Collectors.toList()))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] writeFilms() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(filmList);
+    }
+}
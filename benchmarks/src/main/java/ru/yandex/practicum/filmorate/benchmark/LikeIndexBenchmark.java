@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение индекса лайков в памяти на likes лайков. После каждой итерации в вывод пишется,
+ * сколько памяти кучи занимает построенный индекс в пересчете на один лайк
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LikeIndexBenchmark {
+    @Param("10000000")
+    private int likes;
+    @Param("100000")
+    private int films;
+    @Param("100")
+    private int likesPerUser;
+
+    private int[] userIds;
+    private int[] filmIds;
+    private long heapBefore;
+    private InMemoryLikeStorage built;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        userIds = new int[likes];
+        filmIds = new int[likes];
+        for (int i = 0; i < likes; i++) {
+            userIds[i] = i / likesPerUser + 1;
+            filmIds[i] = random.nextInt(films) + 1;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void measureHeapBefore() {
+        built = null;
+        heapBefore = usedHeap();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportFootprint() {
+        long bytes = usedHeap() - heapBefore;
+        System.out.printf("Индекс лайков: %d МБ, %.1f байт на лайк%n", bytes >> 20, (double) bytes / likes);
+        built = null;
+    }
+
+    @Benchmark
+    public InMemoryLikeStorage buildIndex() {
+        InMemoryLikeStorage storage = new InMemoryLikeStorage();
+        for (int i = 0; i < likes; i++) {
+            storage.addUserLikeToFilm(userIds[i], filmIds[i]);
+        }
+        built = storage;
+        return storage;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.service.FilmPopularityCache;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность лайков в базе через FilmService: сразу в базу и с отложенной записью пачками
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeWriteBenchmark {
+    @Param({"false", "true"})
+    private boolean writeBehind;
+    @Param("1000")
+    private int films;
+    @Param("1000")
+    private int users;
+
+    private StorageFixture fixture;
+    private LikeWriteBehindBuffer likeBuffer;
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = StorageFixture.database();
+        FilmStorage filmStorage = fixture.getFilmStorage();
+        DataSeeder.films(filmStorage, films, 1);
+        DataSeeder.users(fixture.getUserStorage(), users);
+        likeBuffer = new LikeWriteBehindBuffer(filmStorage, writeBehind, 10000, 500, 200);
+        filmService = new FilmService(new UserService(fixture.getUserStorage()), filmStorage,
+                new FilmPopularityCache(filmStorage, 100), likeBuffer);
+        likeBuffer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        likeBuffer.stop();
+        fixture.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void likeOrUnlike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userId = random.nextInt(users) + 1;
+        int filmId = random.nextInt(films) + 1;
+        if (random.nextBoolean()) {
+            filmService.addUserLikeToFilm(userId, filmId);
+        } else {
+            filmService.removeUserLikeFromFilm(userId, filmId);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный тест по HTTP: threads потоков в замкнутом цикле шлют запросы вперемешку в заданных долях,
+ * после прогрева duration секунд копятся гистограммы задержек (HdrHistogram). В конце для каждого вида
+ * запроса печатаются пропускная способность и p50/p99/p999.
+ * <p>
+ * Без параметра target приложение запускается в этом же процессе на свободном порту, остальные параметры
+ * вида spring.* передаются ему (например, spring.datasource.url или spring.profiles.active).
+ * <p>
+ * Параметры (по умолчанию): target, threads (16), warmup (10), duration (60), users (100000), films (10000),
+ * zipf (1.0), mix (popular:40,film:40,like:10,common:10), hgrm-dir - куда записать распределения задержек
+ * <p>
+ * Поток ждет ответа перед следующим запросом, поэтому при перегрузке задержки занижены
+ * (coordinated omission): сравнивать имеет смысл запуски с одинаковым числом потоков
+ */
+public class LoadDriver {
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final String target;
+    private final int users;
+    private final ZipfSampler filmSampler;
+    private final ZipfSampler userSampler;
+    private int totalWeight;
+    private volatile boolean running = true;
+
+    private LoadDriver(String target, int users, int films, double zipf, String mix) {
+        this.target = target;
+        this.users = users;
+        this.filmSampler = new ZipfSampler(films, zipf);
+        this.userSampler = new ZipfSampler(users, zipf);
+        for (String part : mix.split(",")) {
+            String[] nameAndWeight = part.split(":");
+            Operation operation = new Operation(nameAndWeight[0], Integer.parseInt(nameAndWeight[1]));
+            totalWeight += operation.weight;
+            operations.put(operation.name, operation);
+        }
+    }
+
+    private static class Operation {
+        private final String name;
+        private final int weight;
+        private final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private Histogram result;
+
+        private Operation(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = DataGenerator.parseOptions(args);
+        String target = options.get("target");
+        ConfigurableApplicationContext context = null;
+        if (target == null) {
+            List<String> springArgs = new ArrayList<>();
+            springArgs.add("--server.port=0");
+            // Приложение не использует JPA, а в собранном benchmarks.jar Hibernate не находит корень единицы хранения
+            springArgs.add("--spring.autoconfigure.exclude=" + HibernateJpaAutoConfiguration.class.getName());
+            options.forEach((name, value) -> {
+                if (name.startsWith("spring.") || name.startsWith("filmorate.")) {
+                    springArgs.add("--" + name + "=" + value);
+                }
+            });
+            context = SpringApplication.run(FilmorateApplication.class, springArgs.toArray(new String[0]));
+            target = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            LoadDriver driver = new LoadDriver(target,
+                    Integer.parseInt(options.getOrDefault("users", "100000")),
+                    Integer.parseInt(options.getOrDefault("films", "10000")),
+                    Double.parseDouble(options.getOrDefault("zipf", "1.0")),
+                    options.getOrDefault("mix", "popular:40,film:40,like:10,common:10"));
+            driver.run(Integer.parseInt(options.getOrDefault("threads", "16")),
+                    Integer.parseInt(options.getOrDefault("warmup", "10")),
+                    Integer.parseInt(options.getOrDefault("duration", "60")));
+            if (options.containsKey("hgrm-dir")) {
+                driver.writeDistributions(Paths.get(options.get("hgrm-dir")));
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private void run(int threads, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::work, "load-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        System.out.printf("Нагрузка на %s: %d потоков, прогрев %d с, замер %d с%n",
+                target, threads, warmupSeconds, durationSeconds);
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        // Задержки прогрева отбрасываются
+        operations.values().forEach(operation -> operation.recorder.getIntervalHistogram());
+        long started = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        operations.values().forEach(operation -> operation.result = operation.recorder.getIntervalHistogram());
+        double seconds = (System.nanoTime() - started) / 1e9;
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report(seconds);
+    }
+
+    private void work() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            Operation operation = choose(random);
+            HttpRequest request = request(operation.name, random);
+            long started = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                // 404 при общих друзьях и лайках случайных пользователей - нормальный ответ, ошибки - только 5xx
+                if (response.statusCode() >= 500) {
+                    operation.errors.incrementAndGet();
+                }
+            } catch (IOException e) {
+                operation.errors.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            operation.recorder.recordValue(Math.min(System.nanoTime() - started, MAX_LATENCY_NANOS));
+        }
+    }
+
+    private Operation choose(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Operation operation : operations.values()) {
+            value -= operation.weight;
+            if (value < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Пустая смесь запросов");
+    }
+
+    private HttpRequest request(String name, Random random) {
+        switch (name) {
+            case "popular":
+                return get("/films/popular?count=10");
+            case "film":
+                return get("/films/" + filmSampler.next(random));
+            case "like":
+                String path = "/films/" + filmSampler.next(random) + "/like/" + (random.nextInt(users) + 1);
+                HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target + path));
+                return (random.nextBoolean() ? builder.PUT(HttpRequest.BodyPublishers.noBody()) : builder.DELETE())
+                        .build();
+            case "common":
+                return get("/users/" + userSampler.next(random) + "/friends/common/" + (random.nextInt(users) + 1));
+            default:
+                throw new IllegalArgumentException("Неизвестный вид запроса: " + name
+                        + ", доступны popular, film, like, common");
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(target + path)).GET().build();
+    }
+
+    private void report(double seconds) {
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %10s %8s%n",
+                "запрос", "всего", "в сек", "p50 мс", "p99 мс", "p999 мс", "max мс", "ошибки");
+        Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+        long totalErrors = 0;
+        for (Operation operation : operations.values()) {
+            printRow(operation.name, operation.result, seconds, operation.errors.get());
+            total.add(operation.result);
+            totalErrors += operation.errors.get();
+        }
+        printRow("все", total, seconds, totalErrors);
+    }
+
+    private static void printRow(String name, Histogram histogram, double seconds, long errors) {
+        System.out.printf("%-8s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                name, histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()), errors);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Распределения задержек в формате .hgrm (в миллисекундах), их можно сравнить между запусками
+     * в HdrHistogram plotter
+     */
+    private void writeDistributions(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Operation operation : operations.values()) {
+            try (PrintStream out = new PrintStream(directory.resolve(operation.name + ".hgrm").toFile())) {
+                operation.result.outputPercentileDistribution(out, 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCountCallbackHandler;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmMapper;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserMapper;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор строк FilmMapper и UserMapper. Запрос без разбора (только обход строк) - точка отсчета:
+ * разница с ним приходится на сам разбор
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private static final String FILMS_SQL = "SELECT * FROM film";
+    private static final String USERS_SQL = "SELECT * FROM film_user";
+
+    @Param("1000")
+    private int rows;
+
+    private StorageFixture fixture;
+    private JdbcTemplate jdbcTemplate;
+    private FilmMapper filmMapper;
+    private UserMapper userMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = StorageFixture.database();
+        jdbcTemplate = fixture.getJdbcTemplate();
+        ReferenceDataCache referenceData = fixture.getReferenceData();
+        filmMapper = new FilmMapper(mpaId -> referenceData.getMpaById(mpaId).orElse(null));
+        userMapper = new UserMapper();
+        DataSeeder.films(fixture.getFilmStorage(), rows, 0);
+        DataSeeder.users(fixture.getUserStorage(), rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public int filmRowsBaseline() {
+        RowCountCallbackHandler counter = new RowCountCallbackHandler();
+        jdbcTemplate.query(FILMS_SQL, counter);
+        return counter.getRowCount();
+    }
+
+    @Benchmark
+    public List<Film> filmMapper() {
+        return jdbcTemplate.query(FILMS_SQL, filmMapper);
+    }
+
+    @Benchmark
+    public int userRowsBaseline() {
+        RowCountCallbackHandler counter = new RowCountCallbackHandler();
+        jdbcTemplate.query(USERS_SQL, counter);
+        return counter.getRowCount();
+    }
+
+    @Benchmark
+    public List<User> userMapper() {
+        return jdbcTemplate.query(USERS_SQL, userMapper);
+    }
+}
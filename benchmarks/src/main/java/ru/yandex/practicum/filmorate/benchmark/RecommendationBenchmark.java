@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmPopularityCache;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендации по совместным лайкам на хранилищах в памяти: по умолчанию 20000 пользователей по 50 лайков,
+ * то есть 1M лайков. Полная пересборка матрицы, запросы похожих фильмов и рекомендаций, пара лайк-отмена лайка
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecommendationBenchmark {
+    @Param("10000")
+    private int films;
+    @Param("20000")
+    private int users;
+    @Param("50")
+    private int likesPerUser;
+    @Param("10")
+    private int count;
+
+    private FilmService filmService;
+    private RecommendationService recommendationService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StorageFixture fixture = StorageFixture.create(StorageFixture.IN_MEMORY);
+        FilmStorage filmStorage = fixture.getFilmStorage();
+        DataSeeder.films(filmStorage, films, 1);
+        DataSeeder.users(fixture.getUserStorage(), users);
+        DataSeeder.likes(filmStorage, users, films, likesPerUser, 1);
+        UserService userService = new UserService(fixture.getUserStorage());
+        filmService = new FilmService(userService, filmStorage, new FilmPopularityCache(filmStorage, 100),
+                new LikeWriteBehindBuffer(filmStorage, false, 10000, 500, 200));
+        recommendationService = new RecommendationService(filmService, userService, filmStorage, Long.MAX_VALUE);
+        recommendationService.rebuild();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 3)
+    public void rebuild() {
+        recommendationService.rebuild();
+    }
+
+    @Benchmark
+    public List<Film> getSimilarFilms() {
+        return recommendationService.getSimilarFilms(ThreadLocalRandom.current().nextInt(films) + 1, count);
+    }
+
+    @Benchmark
+    public List<Film> getRecommendations() {
+        return recommendationService.getRecommendations(ThreadLocalRandom.current().nextInt(users) + 1, count);
+    }
+
+    @Benchmark
+    public void likeAndUnlike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userId = random.nextInt(users) + 1;
+        int filmId = random.nextInt(films) + 1;
+        filmService.addUserLikeToFilm(userId, filmId);
+        filmService.removeUserLikeFromFilm(userId, filmId);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFriendsStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Хранилища для бенчмарка без контекста Spring: "db" - хранилища на базе H2 в памяти со схемой из миграций
+ * приложения, "inmemory" - хранилища в памяти
+ */
+public class StorageFixture implements AutoCloseable {
+    public static final String DB = "db";
+    public static final String IN_MEMORY = "inmemory";
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    private final JdbcConnectionPool pool;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceData;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+
+    private StorageFixture(JdbcConnectionPool pool, JdbcTemplate jdbcTemplate, ReferenceDataCache referenceData,
+                           FilmStorage filmStorage, UserStorage userStorage) {
+        this.pool = pool;
+        this.jdbcTemplate = jdbcTemplate;
+        this.referenceData = referenceData;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    public static StorageFixture create(String kind) {
+        switch (kind) {
+            case DB:
+                return database();
+            case IN_MEMORY:
+                InMemoryLikeStorage likeStorage = new InMemoryLikeStorage();
+                return new StorageFixture(null, null, null, new InMemoryFilmStorage(likeStorage),
+                        new InMemoryUserStorage(likeStorage, new InMemoryFriendsStorage()));
+            default:
+                throw new IllegalArgumentException("Неизвестное хранилище: " + kind);
+        }
+    }
+
+    /**
+     * Отдельная база на каждый вызов, чтобы данные разных бенчмарков не смешивались
+     */
+    public static StorageFixture database() {
+        JdbcConnectionPool pool = JdbcConnectionPool.create(
+                "jdbc:h2:mem:benchmark" + DATABASE_COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(pool).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(pool);
+        ReferenceDataCache referenceData = new ReferenceDataCache(jdbcTemplate);
+        referenceData.refresh();
+        return new StorageFixture(pool, jdbcTemplate, referenceData,
+                new FilmDbStorage(jdbcTemplate, referenceData, false, false),
+                new UserDbStorage(jdbcTemplate, false));
+    }
+
+    /**
+     * @return JdbcTemplate базы, null для хранилищ в памяти
+     */
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public ReferenceDataCache getReferenceData() {
+        return referenceData;
+    }
+
+    public FilmStorage getFilmStorage() {
+        return filmStorage;
+    }
+
+    public UserStorage getUserStorage() {
+        return userStorage;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            jdbcTemplate.execute("SHUTDOWN");
+            pool.dispose();
+        }
+    }
+}
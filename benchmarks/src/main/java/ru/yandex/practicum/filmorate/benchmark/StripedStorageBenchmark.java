@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryAbstractStorage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность InMemoryAbstractStorage при 1, 4 и 16 потоках: чтения по ИД вперемешку
+ * с изменениями, доля изменений задается writePercent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StripedStorageBenchmark {
+    @Param("10000")
+    private int users;
+    @Param("10")
+    private int writePercent;
+
+    private InMemoryAbstractStorage<User> storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = new InMemoryAbstractStorage<>();
+        for (int i = 0; i < users; i++) {
+            storage.create(DataSeeder.user(i));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object readWrite1Thread() {
+        return readOrWrite();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object readWrite4Threads() {
+        return readOrWrite();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object readWrite16Threads() {
+        return readOrWrite();
+    }
+
+    private Object readOrWrite() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int number = random.nextInt(users);
+        if (random.nextInt(100) < writePercent) {
+            return storage.update(DataSeeder.user(number).toBuilder().id(number + 1).build());
+        }
+        return storage.getById(number + 1);
+    }
+}
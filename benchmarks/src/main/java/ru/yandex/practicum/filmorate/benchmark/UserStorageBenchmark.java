@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общие друзья случайной пары пользователей и чтение пользователя по ИД, в базе и в памяти
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserStorageBenchmark {
+    @Param({StorageFixture.DB, StorageFixture.IN_MEMORY})
+    private String storage;
+    @Param("10000")
+    private int users;
+    @Param("50")
+    private int friendsPerUser;
+
+    private StorageFixture fixture;
+    private UserStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = StorageFixture.create(storage);
+        userStorage = fixture.getUserStorage();
+        DataSeeder.users(userStorage, users);
+        DataSeeder.friendships(userStorage, users, friendsPerUser, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userStorage.getCommonFriends(random.nextInt(users) + 1, random.nextInt(users) + 1);
+    }
+
+    @Benchmark
+    public Optional<User> getById() {
+        return userStorage.getById(ThreadLocalRandom.current().nextInt(users) + 1);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Случайные номера от 1 до n с вероятностью, обратно пропорциональной номеру в степени exponent:
+ * номер 1 выпадает чаще всех, хвост длинный. Функция распределения считается один раз,
+ * выбор - двоичный поиск по ней
+ */
+public class ZipfSampler {
+    private final double[] cumulative;
+
+    public ZipfSampler(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        // Не найдено точно: binarySearch возвращает -(точка вставки) - 1
+        return (index >= 0 ? index : -index - 1) + 1;
+    }
+
+    /**
+     * Степенное распределение Парето со средним mean (при alpha больше 1): у большинства значения около mean/2,
+     * у немногих в десятки раз больше
+     */
+    public static int pareto(Random random, double mean, double alpha, int max) {
+        double scale = mean * (alpha - 1) / alpha;
+        double value = scale / Math.pow(1 - random.nextDouble(), 1 / alpha);
+        return (int) Math.min(max, Math.round(value));
+    }
+}
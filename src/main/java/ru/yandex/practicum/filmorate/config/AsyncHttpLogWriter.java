@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пишет журнал HTTP-запросов в отдельном потоке, чтобы запись в лог не задерживала ответ.
+ * Запросы и ответы форматируются в потоке запроса, в очередь попадают готовые строки.
+ * Очередь ограничена: когда она заполнена, записи отбрасываются и считаются, запрос не ждет
+ */
+@Slf4j
+public class AsyncHttpLogWriter implements HttpLogWriter {
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+
+    private final HttpLogWriter delegate;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AsyncHttpLogWriter(HttpLogWriter delegate, int queueCapacity) {
+        this.delegate = delegate;
+        // Один поток сохраняет порядок записей
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-log-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> dropped.incrementAndGet());
+    }
+
+    @Override
+    public boolean isActive() {
+        return delegate.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        executor.execute(() -> {
+            try {
+                delegate.write(precorrelation, request);
+            } catch (IOException e) {
+                log.warn("Ошибка записи журнала HTTP-запросов", e);
+            }
+        });
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        executor.execute(() -> {
+            try {
+                delegate.write(correlation, response);
+            } catch (IOException e) {
+                log.warn("Ошибка записи журнала HTTP-запросов", e);
+            }
+        });
+    }
+
+    /**
+     * @return сколько записей отброшено из-за заполненной очереди
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Дописывает очередь при остановке приложения
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Журнал HTTP-запросов не дописан за {} с, отброшено записей: {}",
+                    STOP_TIMEOUT_SECONDS, executor.shutdownNow().size());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.Conditions;
+import org.zalando.logbook.DefaultHttpLogWriter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Настройки журнала HTTP-запросов Logbook. Запрос, не прошедший условие, не буферизуется и не форматируется,
+ * поэтому частые GET-запросы исключаются, а остальные пишутся с долей sample-rate
+ */
+@Configuration
+@Slf4j
+public class HttpLogConfig {
+    /**
+     * Заменяет условие Logbook по умолчанию (бин с тем же именем), свойства logbook.include и logbook.exclude
+     * поэтому не действуют
+     */
+    @Bean
+    public Predicate<HttpRequest> requestCondition(
+            @Value("${filmorate.http-log.sample-rate:1.0}") double sampleRate,
+            @Value("${filmorate.http-log.exclude-get:}") String[] excludedGetPaths) {
+        log.info("Журнал HTTP-запросов: доля {}, без GET {}", sampleRate, Arrays.toString(excludedGetPaths));
+        Predicate<HttpRequest> excluded = request -> false;
+        for (String path : excludedGetPaths) {
+            Predicate<HttpRequest> getToPath = Conditions.<HttpRequest>requestTo(path.trim())
+                    .and(request -> "GET".equals(request.getMethod()));
+            excluded = excluded.or(getToPath);
+        }
+        Predicate<HttpRequest> condition = excluded.negate();
+        if (sampleRate >= 1) {
+            return condition;
+        }
+        return condition.and(request -> ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Записи пишет DefaultHttpLogWriter (логгер org.zalando.logbook.Logbook, уровень TRACE),
+     * при async.enabled - в отдельном потоке
+     */
+    @Bean
+    public HttpLogWriter httpLogWriter(
+            @Value("${filmorate.http-log.async.enabled:true}") boolean async,
+            @Value("${filmorate.http-log.async.queue-capacity:10000}") int queueCapacity) {
+        HttpLogWriter writer = new DefaultHttpLogWriter();
+        return async ? new AsyncHttpLogWriter(writer, queueCapacity) : writer;
+    }
+
+    /**
+     * Записи журнала, отброшенные из-за заполненной очереди: filmorate.http.log.dropped
+     */
+    @Bean
+    public MeterBinder httpLogWriterMetrics(HttpLogWriter httpLogWriter) {
+        return registry -> {
+            if (httpLogWriter instanceof AsyncHttpLogWriter) {
+                FunctionCounter.builder("filmorate.http.log.dropped", (AsyncHttpLogWriter) httpLogWriter,
+                                AsyncHttpLogWriter::getDropped)
+                        .register(registry);
+            }
+        };
+    }
+}
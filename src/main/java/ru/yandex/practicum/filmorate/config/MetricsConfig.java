@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import ru.yandex.practicum.filmorate.service.FilmPopularityCache;
+
+import javax.sql.DataSource;
+
+/**
+ * Метрики приложения, отдаются через /actuator/prometheus
+ */
+@Configuration
+public class MetricsConfig {
+    /**
+     * Оборачивает источники соединений, чтобы считать SQL-запросы. Метод статический: обработчик бинов
+     * создается раньше остальных бинов и не должен тянуть за собой эту конфигурацию
+     */
+    @Bean
+    public static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof SqlCountingDataSource)) {
+                    return new SqlCountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementsFilter> sqlStatementsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<SqlStatementsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementsFilter(registry));
+        // Снаружи остальных фильтров, чтобы посчитать и их запросы
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Попадания и промахи кэша популярных фильмов: filmorate.popular.cache.requests с тегом result
+     */
+    @Bean
+    public MeterBinder popularityCacheMetrics(FilmPopularityCache popularityCache) {
+        return registry -> {
+            FunctionCounter.builder("filmorate.popular.cache.requests", popularityCache, FilmPopularityCache::getHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("filmorate.popular.cache.requests", popularityCache, FilmPopularityCache::getMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+        };
+    }
+}
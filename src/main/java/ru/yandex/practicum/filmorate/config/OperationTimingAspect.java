@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время и количество вызовов каждого публичного метода хранилищ (в базе и в памяти) и сервисов.
+ * Таймеры filmorate.storage.operations и filmorate.service.operations с тегами class, method и exception
+ * (имя класса исключения или none). Вызовы объекта самого себя через this не замеряются
+ */
+@Aspect
+@Component
+public class OperationTimingAspect {
+    static final String STORAGE_METRIC = "filmorate.storage.operations";
+    static final String SERVICE_METRIC = "filmorate.service.operations";
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public OperationTimingAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Pointcut("execution(public * *(..)) && !execution(* java.lang.Object.*(..))")
+    public void publicMethod() {
+    }
+
+    @Pointcut("target(ru.yandex.practicum.filmorate.storage.AbstractStorage)"
+            + " || target(ru.yandex.practicum.filmorate.storage.LikeStorage)"
+            + " || target(ru.yandex.practicum.filmorate.storage.FriendsStorage)")
+    public void storage() {
+    }
+
+    @Pointcut("target(ru.yandex.practicum.filmorate.service.AbstractService)"
+            + " || target(ru.yandex.practicum.filmorate.service.RecommendationService)")
+    public void service() {
+    }
+
+    @Around("publicMethod() && storage()")
+    public Object timeStorageOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(STORAGE_METRIC, joinPoint);
+    }
+
+    @Around("publicMethod() && service()")
+    public Object timeServiceOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_METRIC, joinPoint);
+    }
+
+    private Object time(String metric, ProceedingJoinPoint joinPoint) throws Throwable {
+        long started = System.nanoTime();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder(metric)
+                    .tag("class", joinPoint.getTarget().getClass().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Сколько SQL-запросов может выполнить метод контроллера за один вызов. Значение можно переопределить
+ * свойством filmorate.sql.budget.&lt;Контроллер&gt;.&lt;метод&gt;, например filmorate.sql.budget.FilmController.findAll
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+    int value();
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.SqlBudgetExceededException;
+
+/**
+ * Проверяет, что метод контроллера с @SqlBudget уложился в свое число SQL-запросов. При превышении пишет
+ * предупреждение с текстами запросов, а с filmorate.sql.budget.fail-on-exceed=true (для тестов) бросает исключение
+ */
+@Aspect
+@Component
+@Slf4j
+public class SqlBudgetAspect {
+    private static final String PROPERTY_PREFIX = "filmorate.sql.budget.";
+
+    private final Environment environment;
+    private final boolean failOnExceed;
+
+    @Autowired
+    public SqlBudgetAspect(Environment environment,
+                           @Value("${filmorate.sql.budget.fail-on-exceed:false}") boolean failOnExceed) {
+        this.environment = environment;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Around("@annotation(budget)")
+    public Object checkBudget(ProceedingJoinPoint joinPoint, SqlBudget budget) throws Throwable {
+        // Класс объекта, а не метода: findAll объявлен в AbstractController, а бюджет у каждого контроллера свой
+        String endpoint = joinPoint.getTarget().getClass().getSimpleName() + "." + joinPoint.getSignature().getName();
+        int limit = environment.getProperty(PROPERTY_PREFIX + endpoint, Integer.class, budget.value());
+        Object result;
+        try (SqlStatementCounter.Recording recording = SqlStatementCounter.record()) {
+            result = joinPoint.proceed();
+            if (recording.getCount() > limit) {
+                String message = String.format("%s выполнил %d SQL-запросов при бюджете %d: %s",
+                        endpoint, recording.getCount(), limit, recording.getStatements());
+                if (failOnExceed) {
+                    throw new SqlBudgetExceededException(message);
+                }
+                log.warn(message);
+            }
+        }
+        return result;
+    }
+}
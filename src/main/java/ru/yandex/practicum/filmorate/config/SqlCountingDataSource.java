@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Источник соединений, который считает выполненные запросы в SqlStatementCounter. Каждый вызов execute*
+ * у Statement - один запрос, пачка executeBatch тоже считается одним: это одно обращение к базе
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+    public SqlCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return countingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return countingConnection(super.getConnection(username, password));
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            // Соединение отдает наружу только обертки, поэтому запросы через них будут посчитаны.
+            // У prepareStatement и prepareCall текст запроса - первый аргумент
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            if (result instanceof CallableStatement) {
+                return countingStatement(CallableStatement.class, (Statement) result, sql);
+            } else if (result instanceof PreparedStatement) {
+                return countingStatement(PreparedStatement.class, (Statement) result, sql);
+            } else if (result instanceof Statement) {
+                return countingStatement(Statement.class, (Statement) result, null);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @param preparedSql - текст подготовленного запроса, null для Statement: там текст передается в execute
+     */
+    private static <S extends Statement> S countingStatement(Class<S> type, Statement statement, String preparedSql) {
+        return proxy(type, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                boolean sqlArgument = args != null && args.length > 0 && args[0] instanceof String;
+                SqlStatementCounter.increment(sqlArgument ? (String) args[0] : preparedSql);
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Обертка равна только самой себе: Spring сравнивает соединения при возврате их в пул
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        InvocationHandler withIdentity = (proxy, method, args) -> {
+            if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            } else if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            return handler.invoke(proxy, method, args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, withIdentity);
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Счетчик SQL-запросов текущего потока. Считает всегда, а участок кода узнает свое число запросов
+ * как разницу current() в начале и в конце, поэтому вложенные замеры не мешают друг другу.
+ * Тексты запросов запоминаются, только пока открыта запись record()
+ */
+public final class SqlStatementCounter {
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+    private static final ThreadLocal<List<Recording>> RECORDINGS = ThreadLocal.withInitial(ArrayList::new);
+    // Сколько текстов запросов хранит одна запись, дальше только считаются
+    private static final int MAX_RECORDED_STATEMENTS = 100;
+
+    private SqlStatementCounter() {
+    }
+
+    static void increment(String sql) {
+        COUNT.get()[0]++;
+        for (Recording recording : RECORDINGS.get()) {
+            recording.add(sql);
+        }
+    }
+
+    /**
+     * @return сколько запросов выполнил текущий поток с момента старта
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    /**
+     * Начинает запись запросов текущего потока, запись заканчивается вызовом close()
+     */
+    public static Recording record() {
+        Recording recording = new Recording();
+        RECORDINGS.get().add(recording);
+        return recording;
+    }
+
+    public static class Recording implements AutoCloseable {
+        private final long startCount = current();
+        private final List<String> statements = new ArrayList<>();
+
+        private void add(String sql) {
+            if (statements.size() < MAX_RECORDED_STATEMENTS) {
+                statements.add(sql);
+            }
+        }
+
+        public long getCount() {
+            return current() - startCount;
+        }
+
+        /**
+         * @return тексты первых MAX_RECORDED_STATEMENTS запросов в порядке выполнения
+         */
+        public List<String> getStatements() {
+            return statements;
+        }
+
+        @Override
+        public void close() {
+            RECORDINGS.get().remove(this);
+        }
+    }
+}
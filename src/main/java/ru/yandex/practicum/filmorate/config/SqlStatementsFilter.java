@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Число SQL-запросов на HTTP-запрос: распределение filmorate.http.sql.statements с тегами method, uri
+ * (шаблон пути, как у http.server.requests) и status. Эндпоинт с N+1 виден по росту числа запросов
+ * вместе с размером ответа. Потоковая выгрузка пишет ответ в другом потоке, ее запросы сюда не попадают
+ */
+@Slf4j
+public class SqlStatementsFilter extends OncePerRequestFilter {
+    static final String METRIC = "filmorate.http.sql.statements";
+
+    private final MeterRegistry registry;
+
+    public SqlStatementsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = SqlStatementCounter.current();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long statements = SqlStatementCounter.current() - before;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder(METRIC)
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .tag("status", String.valueOf(response.getStatus()))
+                    .register(registry)
+                    .record(statements);
+            log.debug("{} {}: SQL-запросов {}", request.getMethod(), uri, statements);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.WebContentInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private static final String[] REFERENCE_DATA_PATHS = {"/genres", "/genres/*", "/mpa", "/mpa/*"};
+
+    private final long referenceDataMaxAgeSeconds;
+
+    public WebConfig(@Value("${filmorate.reference-data.max-age-seconds:3600}") long referenceDataMaxAgeSeconds) {
+        this.referenceDataMaxAgeSeconds = referenceDataMaxAgeSeconds;
+    }
+
+    /**
+     * Жанры и рейтинги почти не меняются, клиентам и прокси можно кэшировать ответы
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        WebContentInterceptor interceptor = new WebContentInterceptor();
+        interceptor.addCacheMapping(CacheControl.maxAge(referenceDataMaxAgeSeconds, TimeUnit.SECONDS).cachePublic(),
+                REFERENCE_DATA_PATHS);
+        registry.addInterceptor(interceptor).addPathPatterns(REFERENCE_DATA_PATHS);
+    }
+
+    /**
+     * ETag по телу ответа, чтобы после истечения max-age клиент получал 304 без тела
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> referenceDataEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns(REFERENCE_DATA_PATHS);
+        return registration;
+    }
+}
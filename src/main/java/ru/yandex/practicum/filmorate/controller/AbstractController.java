@@ -1,26 +1,70 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.config.SqlBudget;
 import ru.yandex.practicum.filmorate.model.HasId;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.service.AbstractService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
 public abstract class AbstractController<T extends HasId> {
+    protected static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final AbstractService<T> abstractService;
+    // ObjectMapper приложения: выгрузка сериализуется так же, как обычные JSON-ответы
+    private final ObjectMapper objectMapper;
 
-    protected AbstractController(AbstractService<T> abstractService) {
+    protected AbstractController(AbstractService<T> abstractService, ObjectMapper objectMapper) {
         this.abstractService = abstractService;
+        this.objectMapper = objectMapper;
     }
 
+    // Запрос списка и для фильмов по запросу жанров на каждую 1000 из не больше 10000 объектов
     @GetMapping
+    @SqlBudget(11)
     public List<T> findAll() {
         log.debug("Получение всех {}", abstractService.getTitle());
         return abstractService.findAll();
     }
 
+    /**
+     * Потоковая выгрузка всех объектов (Accept: application/x-ndjson): по одному JSON на строку,
+     * объекты пишутся в ответ по мере чтения из хранилища, весь список в памяти не собирается
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAll() {
+        log.debug("Потоковая выгрузка всех {}", abstractService.getTitle());
+        StreamingResponseBody body = outputStream -> abstractService.forEachOrdered(object -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(object));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Постраничное чтение: курсор следующей страницы возвращается в заголовке X-Next-Cursor,
+     * на последней странице заголовка нет
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<List<T>> findPage(@RequestParam("limit") Integer limit,
+                                            @RequestParam(name = "cursor", required = false) String cursor) {
+        log.debug("Получение страницы {} размером {} после {}", abstractService.getTitle(), limit, cursor);
+        return toResponse(abstractService.findPage(cursor, limit));
+    }
+
     @GetMapping("/{id}")
     public T getById(@PathVariable("id") Integer id) {
         log.debug("Получение {} с ИД: {}", abstractService.getTitle(), id);
@@ -45,4 +89,12 @@ public abstract class AbstractController<T extends HasId> {
         return abstractService.update(updatedObject);
     }
 
+    protected <E> ResponseEntity<List<E>> toResponse(Page<E> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
 }
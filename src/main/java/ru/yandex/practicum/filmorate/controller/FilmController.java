@@ -1,8 +1,11 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.config.SqlBudget;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
@@ -15,8 +18,8 @@ public class FilmController extends AbstractController<Film> {
     private final FilmService filmService;
 
     @Autowired
-    public FilmController(FilmService filmService) {
-        super(filmService);
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
+        super(filmService, objectMapper);
         this.filmService = filmService;
     }
 
@@ -32,10 +35,22 @@ public class FilmController extends AbstractController<Film> {
         filmService.removeUserLikeFromFilm(userId, filmId);
     }
 
+    // Из кэша: количество лайков, если кэш пуст, и недостающие фильмы с жанрами
     @GetMapping("/popular")
+    @SqlBudget(3)
     public List<Film> getFilmsByLikes(@RequestParam(name = "count", defaultValue = "10") Integer count) {
         log.debug("Возврат первых {} фильмов по количеству лайков", count);
         return filmService.getFilmsByLikes(0, count);
     }
 
+    /**
+     * Постраничное чтение популярных фильмов, первая страница запрашивается с пустым cursor
+     */
+    @GetMapping(value = "/popular", params = "cursor")
+    public ResponseEntity<List<Film>> getFilmsByLikesPage(@RequestParam(name = "count", defaultValue = "10") Integer count,
+                                                          @RequestParam("cursor") String cursor) {
+        log.debug("Возврат {} фильмов по количеству лайков после {}", count, cursor);
+        return toResponse(filmService.getFilmsByLikesPage(cursor, count));
+    }
+
 }
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+
+import java.util.List;
+
+@RestController
+@Slf4j
+public class RecommendationController {
+    private final RecommendationService recommendationService;
+
+    @Autowired
+    public RecommendationController(RecommendationService recommendationService) {
+        this.recommendationService = recommendationService;
+    }
+
+    @GetMapping("/films/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable("id") Integer filmId,
+                                      @RequestParam(name = "count", defaultValue = "10") Integer count) {
+        log.debug("Возврат {} фильмов, похожих на фильм с ИД {}", count, filmId);
+        return recommendationService.getSimilarFilms(filmId, count);
+    }
+
+    @GetMapping("/users/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable("id") Integer userId,
+                                         @RequestParam(name = "count", defaultValue = "10") Integer count) {
+        log.debug("Возврат {} рекомендованных фильмов для пользователя с ИД {}", count, userId);
+        return recommendationService.getRecommendations(userId, count);
+    }
+}
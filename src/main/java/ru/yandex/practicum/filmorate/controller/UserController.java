@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -16,8 +17,8 @@ public class UserController extends AbstractController<User> {
     private final UserService userService;
 
     @Autowired
-    public UserController(UserService userService) {
-        super(userService);
+    public UserController(UserService userService, ObjectMapper objectMapper) {
+        super(userService, objectMapper);
         this.userService = userService;
     }
 
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.exception;
+
+/**
+ * Запрос выполнил больше SQL-запросов, чем разрешено его эндпоинту (только при filmorate.sql.budget.fail-on-exceed)
+ */
+public class SqlBudgetExceededException extends RuntimeException {
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -4,8 +4,27 @@ import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.function.Function;
 
 public class FilmMapper implements RowMapper<Film> {
+    private final Function<Integer, Mpa> mpaById;
+
+    /**
+     * Рейтинг берется из колонок mpa_id и mpa_name результата запроса
+     */
+    public FilmMapper() {
+        this.mpaById = null;
+    }
+
+    /**
+     * Рейтинг берется по mpa_id из справочника, запросу не нужно соединяться с таблицей mpa
+     *
+     * @param mpaById - поиск рейтинга по ИД
+     */
+    public FilmMapper(Function<Integer, Mpa> mpaById) {
+        this.mpaById = mpaById;
+    }
+
     @Override
     public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
         return Film.builder()
@@ -14,7 +33,16 @@ public class FilmMapper implements RowMapper<Film> {
                 .name(rs.getString("name"))
                 .description(rs.getString("description"))
                 .duration(rs.getLong("duration"))
-                .mpa(new Mpa(rs.getInt("mpa_id"), rs.getString("mpa_name")))
+                .mpa(mapMpa(rs))
                 .build();
     }
+
+    private Mpa mapMpa(ResultSet rs) throws SQLException {
+        int mpaId = rs.getInt("mpa_id");
+        if (mpaById == null) {
+            return new Mpa(mpaId, rs.getString("mpa_name"));
+        }
+        Mpa mpa = mpaById.apply(mpaId);
+        return mpa != null ? mpa : new Mpa(mpaId, null);
+    }
 }
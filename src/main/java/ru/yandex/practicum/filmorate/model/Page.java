@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+public class Page<T> {
+    private List<T> items;
+    /**
+     * Курсор следующей страницы, null если это последняя страница
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Builder;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция последнего прочитанного объекта для постраничного чтения без OFFSET.
+ * Для списков по ИД заполнен только id, для популярных фильмов еще и количество лайков.
+ * Клиенту отдается в виде непрозрачной строки, см. encode() и decode()
+ */
+@Data
+@Builder(toBuilder = true)
+public class PageCursor {
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = ":";
+
+    private Integer likes;
+    private Integer id;
+
+    public String encode() {
+        String value = VERSION + SEPARATOR + (likes == null ? "" : likes) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token - строка из encode(), пустая строка или null означают начало списка
+     * @return курсор или null для начала списка
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = value.split(SEPARATOR, -1);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new ValidationException("Некорректный курсор страницы");
+            }
+            return PageCursor.builder()
+                    .likes(parts[1].isEmpty() ? null : Integer.valueOf(parts[1]))
+                    .id(Integer.valueOf(parts[2]))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+    }
+}
@@ -4,14 +4,21 @@ import lombok.extern.slf4j.Slf4j;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.HasId;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 import ru.yandex.practicum.filmorate.storage.AbstractStorage;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
 @Slf4j
 public abstract class AbstractService<T extends HasId> {
+    protected static final int MAX_PAGE_SIZE = 1000;
+    // Больше этого findAll() не отдает, для полного списка нужно постраничное чтение
+    private static final int MAX_UNPAGED_SIZE = 10_000;
 
     private final AbstractStorage<T> storage;
 
@@ -27,10 +34,7 @@ public abstract class AbstractService<T extends HasId> {
 
     public T update(T updatedObject) {
         validate(updatedObject);
-        if (storage.getById(updatedObject.getId()).isEmpty()) {
-            log.debug("Не найден {} с таким ИД: {}", getTitle(), updatedObject.getId());
-            throw new NotFoundException();
-        }
+        trowIfNotExist(updatedObject.getId());
         log.debug("Обновлен {}: {}", getTitle(), updatedObject);
         return storage.update(updatedObject);
     }
@@ -50,11 +54,65 @@ public abstract class AbstractService<T extends HasId> {
     }
 
     public List<T> findAll() {
-        return storage.findAll();
+        Page<T> page = storage.findPage(null, MAX_UNPAGED_SIZE);
+        if (page.getNextCursor() != null) {
+            log.warn("Список {} обрезан до {} объектов, для полного списка нужно постраничное чтение",
+                    getTitle(), MAX_UNPAGED_SIZE);
+        }
+        return page.getItems();
+    }
+
+    /**
+     * Все объекты по одному, без сборки списка в памяти, для потоковой выгрузки
+     */
+    public void forEachOrdered(Consumer<? super T> action) {
+        storage.forEachOrdered(action);
+    }
+
+    /**
+     * Страница объектов по возрастанию ИД
+     *
+     * @param cursor - курсор из предыдущей страницы, null или пустая строка для первой страницы
+     * @param limit  - размер страницы, от 1 до MAX_PAGE_SIZE
+     */
+    public Page<T> findPage(String cursor, Integer limit) {
+        validatePageLimit(limit);
+        return storage.findPage(PageCursor.decode(cursor), limit);
+    }
+
+    protected void validatePageLimit(Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            log.debug("Некорректный размер страницы: {}", limit);
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
     }
 
     public abstract String getTitle();
 
+    /**
+     * Проверка существования без загрузки объекта, выкидывает NotFoundException если объекта нет
+     *
+     * @param id - ИД объекта
+     */
+    protected void trowIfNotExist(Integer id) {
+        if (!storage.exists(id)) {
+            log.debug("Не найден {} с таким ИД: {}", getTitle(), id);
+            throw new NotFoundException();
+        }
+    }
+
+    /**
+     * То же что trowIfNotExist, но для нескольких объектов сразу
+     *
+     * @param ids - ИД объектов
+     */
+    protected void trowIfAnyNotExist(Collection<Integer> ids) {
+        if (!storage.existsAll(ids)) {
+            log.debug("Не найден один из {} с ИД: {}", getTitle(), ids);
+            throw new NotFoundException();
+        }
+    }
+
     protected void validate(T validatedObject) {
         ValidationException validationException = doValidate(validatedObject);
         if (validationException != null) {
@@ -0,0 +1,235 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш самых популярных фильмов. Держит количество лайков по всем фильмам и упорядоченный по нему набор ИД,
+ * который обновляется на каждый лайк/удаление лайка, а не пересчитывается заново.
+ * Сами фильмы подгружаются из хранилища по мере запросов и сбрасываются при обновлении фильма
+ */
+@Component
+@Slf4j
+public class FilmPopularityCache {
+    private final FilmStorage filmStorage;
+    private final int maxSize;
+    private final Map<Integer, Integer> likesByFilmId = new HashMap<>();
+    // Порядок как у хранилища: по убыванию лайков, при равенстве по возрастанию ИД
+    private final TreeSet<Integer> ranking = new TreeSet<>(Comparator
+            .comparing((Integer id) -> likesByFilmId.get(id), Comparator.reverseOrder())
+            .thenComparing(Comparator.naturalOrder()));
+    private final Map<Integer, Film> filmsById = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private boolean loaded;
+    // Меняются на каждое изменение рейтинга и фильмов, по ним видно, что данные устарели, пока читалось хранилище
+    private long version;
+    private long filmsVersion;
+    private int writesInFlight;
+
+    @Autowired
+    public FilmPopularityCache(FilmStorage filmStorage,
+                               @Value("${filmorate.popular.cache.max-size:100}") int maxSize) {
+        this.filmStorage = filmStorage;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Возвращает первые limit фильмов по количеству лайков. Запросы больше maxSize идут мимо кэша в хранилище.
+     * Хранилище читается вне блокировки, результат кладется в кэш под ней
+     *
+     * @param limit - количество фильмов
+     * @return фильмы по убыванию количества лайков
+     */
+    public List<Film> getFilmsByLikes(int limit) {
+        if (limit > maxSize) {
+            misses.incrementAndGet();
+            log.debug("Запрошено {} популярных фильмов, больше размера кэша {}", limit, maxSize);
+            return filmStorage.getFilmsByLikes(0, limit);
+        }
+        boolean hit = isLoaded();
+        while (tryLoad()) {
+            List<Integer> missingIds;
+            long startFilmsVersion;
+            synchronized (this) {
+                if (!loaded) {
+                    // Кэш сбросили между загрузкой и чтением, загружаем заново
+                    continue;
+                }
+                List<Integer> topIds = new ArrayList<>(Math.min(limit, ranking.size()));
+                for (Integer id : ranking) {
+                    if (topIds.size() >= limit) {
+                        break;
+                    }
+                    topIds.add(id);
+                }
+                missingIds = topIds.stream()
+                        .filter(id -> !filmsById.containsKey(id))
+                        .collect(Collectors.toList());
+                if (missingIds.isEmpty()) {
+                    (hit ? hits : misses).incrementAndGet();
+                    return topIds.stream().map(filmsById::get).collect(Collectors.toList());
+                }
+                startFilmsVersion = filmsVersion;
+            }
+            hit = false;
+            // Недостающие фильмы читаются одним вызовом, а не по одному
+            List<Film> films = filmStorage.getFilmsByIds(missingIds);
+            synchronized (this) {
+                if (filmsVersion == startFilmsVersion) {
+                    // Иначе фильм могли обновить, пока он читался, и в кэш попала бы старая версия
+                    films.forEach(film -> filmsById.put(film.getId(), film));
+                }
+                Set<Integer> foundIds = films.stream().map(Film::getId).collect(Collectors.toSet());
+                // Фильма уже нет в хранилище: он убирается из рейтинга, и первые limit выбираются заново
+                missingIds.stream()
+                        .filter(id -> !foundIds.contains(id) && likesByFilmId.containsKey(id))
+                        .forEach(id -> {
+                            ranking.remove(id);
+                            likesByFilmId.remove(id);
+                        });
+            }
+        }
+        misses.incrementAndGet();
+        log.debug("Количество лайков изменилось во время загрузки кэша, популярные фильмы читаются из хранилища");
+        return filmStorage.getFilmsByLikes(0, limit);
+    }
+
+    /**
+     * Записывает лайки в хранилище так, чтобы загрузка кэша не пересеклась с записью.
+     * Изменения кэша после записи (onLikeAdded/onLikeRemoved) должны вызываться внутри write
+     *
+     * @param write - запись лайков в хранилище и уведомление кэша
+     */
+    public void writeLikes(Runnable write) {
+        synchronized (this) {
+            writesInFlight++;
+            version++;
+        }
+        try {
+            write.run();
+        } finally {
+            synchronized (this) {
+                writesInFlight--;
+            }
+        }
+    }
+
+    public synchronized void onFilmCreated(Integer filmId) {
+        version++;
+        if (loaded && !likesByFilmId.containsKey(filmId)) {
+            likesByFilmId.put(filmId, 0);
+            ranking.add(filmId);
+        }
+    }
+
+    public synchronized void onFilmUpdated(Integer filmId) {
+        filmsVersion++;
+        filmsById.remove(filmId);
+    }
+
+    public synchronized void onFilmDeleted(Integer filmId) {
+        version++;
+        filmsVersion++;
+        filmsById.remove(filmId);
+        if (loaded && likesByFilmId.containsKey(filmId)) {
+            ranking.remove(filmId);
+            likesByFilmId.remove(filmId);
+        }
+    }
+
+    public synchronized void onLikeAdded(Integer filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public synchronized void onLikeRemoved(Integer filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    /**
+     * Полностью сбрасывает кэш, следующий запрос перечитает количество лайков из хранилища
+     */
+    public synchronized void invalidate() {
+        version++;
+        filmsVersion++;
+        loaded = false;
+        ranking.clear();
+        likesByFilmId.clear();
+        filmsById.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void changeLikes(Integer filmId, int delta) {
+        version++;
+        if (!loaded) {
+            return;
+        }
+        if (!likesByFilmId.containsKey(filmId)) {
+            // Фильм, о котором кэш не знает, безопаснее перечитать все заново
+            invalidate();
+            return;
+        }
+        // Из TreeSet нужно удалить до изменения количества, иначе элемент не найдется по компаратору
+        ranking.remove(filmId);
+        likesByFilmId.merge(filmId, delta, Integer::sum);
+        ranking.add(filmId);
+    }
+
+    private synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Загружает количество лайков, если кэш еще не загружен. Загрузка не ставится, если во время чтения
+     * шла запись лайков: прочитанное количество может уже включать лайк, изменение по которому придет позже
+     *
+     * @return false, если загрузить не удалось
+     */
+    private boolean tryLoad() {
+        long startVersion;
+        synchronized (this) {
+            if (loaded) {
+                return true;
+            }
+            if (writesInFlight > 0) {
+                return false;
+            }
+            startVersion = version;
+        }
+        Map<Integer, Integer> likesCount = filmStorage.getLikesCountByFilms();
+        synchronized (this) {
+            if (loaded) {
+                return true;
+            }
+            if (version != startVersion) {
+                return false;
+            }
+            likesByFilmId.putAll(likesCount);
+            ranking.addAll(likesByFilmId.keySet());
+            loaded = true;
+            log.debug("Загружено количество лайков для {} фильмов", likesByFilmId.size());
+            return true;
+        }
+    }
+}
@@ -8,11 +8,15 @@ import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -22,31 +26,140 @@ public class FilmService extends AbstractService<Film> {
 
     private final UserService userService;
     private final FilmStorage filmStorage;
+    private final FilmPopularityCache popularityCache;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final List<LikeListener> likeListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Integer>> deleteListeners = new CopyOnWriteArrayList<>();
 
     @Autowired
     public FilmService(UserService userService,
-                       FilmStorage filmStorage) {
+                       FilmStorage filmStorage,
+                       FilmPopularityCache popularityCache,
+                       LikeWriteBehindBuffer likeBuffer) {
         super(filmStorage);
         this.userService = userService;
         this.filmStorage = filmStorage;
+        this.popularityCache = popularityCache;
+        this.likeBuffer = likeBuffer;
+        // Вместе с пользователем удаляются его лайки, пересчитывать их по одному в кэше незачем
+        userService.addDeleteListener(userId -> {
+            likeBuffer.discardUser(userId);
+            popularityCache.invalidate();
+        });
+        // При отложенной записи кэш узнает о лайках, только когда они записаны в хранилище
+        likeBuffer.setWriteGuard(popularityCache::writeLikes);
+        likeBuffer.setFlushListener((added, removed) -> {
+            added.forEach(like -> onLikeAdded(like.getUserId(), like.getFilmId()));
+            removed.forEach(like -> onLikeRemoved(like.getUserId(), like.getFilmId()));
+        });
+    }
+
+    /**
+     * Получает лайки, которые действительно добавились или удалились в хранилище
+     */
+    public interface LikeListener {
+        void onLikeAdded(Integer userId, Integer filmId);
+
+        void onLikeRemoved(Integer userId, Integer filmId);
+    }
+
+    public void addLikeListener(LikeListener listener) {
+        likeListeners.add(listener);
+    }
+
+    /**
+     * Подписка на удаление фильма
+     *
+     * @param listener - получает ИД удаленного фильма
+     */
+    public void addDeleteListener(Consumer<Integer> listener) {
+        deleteListeners.add(listener);
+    }
+
+    private void onLikeAdded(Integer userId, Integer filmId) {
+        popularityCache.onLikeAdded(filmId);
+        likeListeners.forEach(listener -> listener.onLikeAdded(userId, filmId));
+    }
+
+    private void onLikeRemoved(Integer userId, Integer filmId) {
+        popularityCache.onLikeRemoved(filmId);
+        likeListeners.forEach(listener -> listener.onLikeRemoved(userId, filmId));
+    }
+
+    @Override
+    public Film create(Film newObject) {
+        Film film = super.create(newObject);
+        popularityCache.onFilmCreated(film.getId());
+        return film;
+    }
+
+    @Override
+    public Film update(Film updatedObject) {
+        Film film = super.update(updatedObject);
+        popularityCache.onFilmUpdated(film.getId());
+        return film;
+    }
+
+    @Override
+    public void delete(Integer id) {
+        likeBuffer.discardFilm(id);
+        super.delete(id);
+        popularityCache.onFilmDeleted(id);
+        deleteListeners.forEach(listener -> listener.accept(id));
     }
 
     public void addUserLikeToFilm(Integer userId, Integer filmId) {
         trowIfUserNotExist(userId);
         trowIfFilmNotExist(filmId);
-        filmStorage.addUserLikeToFilm(userId, filmId);
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.like(userId, filmId);
+            return;
+        }
+        popularityCache.writeLikes(() -> {
+            if (filmStorage.addUserLikeToFilm(userId, filmId)) {
+                onLikeAdded(userId, filmId);
+            }
+        });
     }
 
     public void removeUserLikeFromFilm(Integer userId, Integer filmId) {
         trowIfUserNotExist(userId);
         trowIfFilmNotExist(filmId);
-        filmStorage.removeUserLikeFromFilm(userId, filmId);
+        if (likeBuffer.isEnabled()) {
+            likeBuffer.unlike(userId, filmId);
+            return;
+        }
+        popularityCache.writeLikes(() -> {
+            if (filmStorage.removeUserLikeFromFilm(userId, filmId)) {
+                onLikeRemoved(userId, filmId);
+            }
+        });
     }
 
     public List<Film> getFilmsByLikes(Integer from, Integer limit) {
+        validatePageLimit(limit);
+        if (from == 0) {
+            return popularityCache.getFilmsByLikes(limit);
+        }
         return filmStorage.getFilmsByLikes(from, limit);
     }
 
+    /**
+     * Страница популярных фильмов без OFFSET: следующая страница читается после фильма из курсора
+     *
+     * @param cursor - курсор из предыдущей страницы, null или пустая строка для первой страницы
+     * @param limit  - размер страницы
+     */
+    public Page<Film> getFilmsByLikesPage(String cursor, Integer limit) {
+        validatePageLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+        if (after != null && after.getLikes() == null) {
+            log.debug("Курсор без количества лайков для списка популярных фильмов: {}", cursor);
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+        return filmStorage.getFilmsByLikesPage(after, limit);
+    }
+
     @Override
     public String getTitle() {
         return "фильм";
@@ -70,13 +183,20 @@ public class FilmService extends AbstractService<Film> {
     }
 
     private void trowIfUserNotExist(Integer id) {
-        // Метод getById(id) выкинет исключение если не будет пользователя с таким ИД, лог тоже внутри метода getById(id)
-        userService.getById(id);
+        // Проверка без загрузки пользователя, лог внутри метода trowIfNotExist(id)
+        userService.trowIfNotExist(id);
+    }
+
+    /**
+     * Фильмы по списку ИД в том же порядке, отсутствующие пропускаются
+     */
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        return filmStorage.getFilmsByIds(ids);
     }
 
     private void trowIfFilmNotExist(Integer id) {
-        // Метод getById(id) выкинет исключение если не будет фильма с таким ИД, лог тоже внутри метода getById(id)
-        getById(id);
+        // Проверка без загрузки фильма с жанрами, лог внутри метода trowIfNotExist(id)
+        trowIfNotExist(id);
     }
 
     public List<Genre> getAllGenres() {
@@ -0,0 +1,227 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Отложенная запись лайков. Лайки и их удаления копятся в памяти и пишутся в хранилище пачками
+ * по таймеру или когда набралось batchSize операций.
+ * Для одной пары (фильм, пользователь) хранится только последняя операция, так что лайк и следующее за ним
+ * удаление лайка превращаются в одно удаление, которое ничего не делает, если лайк не успел записаться.
+ * Если в очереди maxPending операций, поток, добавляющий следующую, сам записывает очередь и ждет записи.
+ * При остановке приложения очередь записывается целиком
+ */
+@Component
+@Slf4j
+public class LikeWriteBehindBuffer {
+    private final FilmStorage filmStorage;
+    private final boolean enabled;
+    private final int maxPending;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    // true - добавить лайк, false - удалить
+    private final Map<Like, Boolean> pending = new LinkedHashMap<>();
+    private final Object flushLock = new Object();
+    private volatile FlushListener flushListener = (added, removed) -> {
+    };
+    // Оборачивает запись пачки вместе с вызовом слушателя
+    private volatile Consumer<Runnable> writeGuard = Runnable::run;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public LikeWriteBehindBuffer(FilmStorage filmStorage,
+                                 @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${filmorate.likes.write-behind.max-pending:10000}") int maxPending,
+                                 @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs) {
+        this.filmStorage = filmStorage;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Получает лайки, которые действительно добавились или удалились при записи очереди
+     */
+    public interface FlushListener {
+        void onFlushed(List<Like> added, List<Like> removed);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "like-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.debug("Отложенная запись лайков включена: пачка {}, очередь {}, интервал {} мс",
+                batchSize, maxPending, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        flush();
+        log.debug("Отложенная запись лайков остановлена, очередь записана");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setFlushListener(FlushListener flushListener) {
+        this.flushListener = flushListener;
+    }
+
+    public void setWriteGuard(Consumer<Runnable> writeGuard) {
+        this.writeGuard = writeGuard;
+    }
+
+    public void like(Integer userId, Integer filmId) {
+        enqueue(Like.builder().userId(userId).filmId(filmId).build(), true);
+    }
+
+    public void unlike(Integer userId, Integer filmId) {
+        enqueue(Like.builder().userId(userId).filmId(filmId).build(), false);
+    }
+
+    /**
+     * Убирает из очереди операции удаленного фильма, иначе их запись нарушит внешний ключ
+     */
+    public void discardFilm(Integer filmId) {
+        synchronized (pending) {
+            pending.keySet().removeIf(like -> like.getFilmId().equals(filmId));
+        }
+    }
+
+    /**
+     * Убирает из очереди операции удаленного пользователя
+     */
+    public void discardUser(Integer userId) {
+        synchronized (pending) {
+            pending.keySet().removeIf(like -> like.getUserId().equals(userId));
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Записывает все накопленные операции пачками по batchSize
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<Like> toAdd = new ArrayList<>();
+            List<Like> toRemove = new ArrayList<>();
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                pending.forEach((like, add) -> (add ? toAdd : toRemove).add(like));
+                pending.clear();
+            }
+            writeGuard.accept(() -> {
+                List<Like> added = new ArrayList<>();
+                List<Like> removed = new ArrayList<>();
+                for (int i = 0; i < toAdd.size(); i += batchSize) {
+                    added.addAll(addBatch(toAdd.subList(i, Math.min(i + batchSize, toAdd.size()))));
+                }
+                for (int i = 0; i < toRemove.size(); i += batchSize) {
+                    removed.addAll(removeBatch(toRemove.subList(i, Math.min(i + batchSize, toRemove.size()))));
+                }
+                log.debug("Записано лайков: {}, удалено: {}", added.size(), removed.size());
+                flushListener.onFlushed(added, removed);
+            });
+        }
+    }
+
+    private void enqueue(Like like, boolean add) {
+        int size;
+        synchronized (pending) {
+            // Последняя операция для пары встает в конец очереди
+            pending.remove(like);
+            pending.put(like, add);
+            size = pending.size();
+        }
+        if (size >= maxPending) {
+            log.debug("Очередь лайков заполнена ({}), запись в потоке запроса", size);
+            flush();
+        } else if (size >= batchSize && scheduler != null) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    private List<Like> addBatch(List<Like> likes) {
+        try {
+            return filmStorage.addUserLikesToFilms(likes);
+        } catch (RuntimeException e) {
+            // Например, фильм удалили, пока лайк ждал в очереди: пишем по одному и пропускаем неудачные
+            log.warn("Пачка из {} лайков не записалась, запись по одному", likes.size(), e);
+            List<Like> added = new ArrayList<>();
+            likes.forEach(like -> {
+                try {
+                    if (filmStorage.addUserLikeToFilm(like.getUserId(), like.getFilmId())) {
+                        added.add(like);
+                    }
+                } catch (RuntimeException likeException) {
+                    log.warn("Лайк {} не записан", like, likeException);
+                }
+            });
+            return added;
+        }
+    }
+
+    private List<Like> removeBatch(List<Like> likes) {
+        try {
+            return filmStorage.removeUserLikesFromFilms(likes);
+        } catch (RuntimeException e) {
+            log.warn("Пачка из {} удалений лайков не записалась, запись по одному", likes.size(), e);
+            List<Like> removed = new ArrayList<>();
+            likes.forEach(like -> {
+                try {
+                    if (filmStorage.removeUserLikeFromFilm(like.getUserId(), like.getFilmId())) {
+                        removed.add(like);
+                    }
+                } catch (RuntimeException likeException) {
+                    log.warn("Удаление лайка {} не записано", like, likeException);
+                }
+            });
+            return removed;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ошибка отложенной записи лайков", e);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.util.IntHashSet;
+import ru.yandex.practicum.filmorate.util.IntIntHashMap;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Рекомендации по совместным лайкам. В памяти хранится матрица: для каждого фильма - сколько пользователей
+ * лайкнули и его, и каждый другой фильм. Матрица обновляется при каждом лайке и удалении лайка
+ * и раз в rebuild-interval-ms пересобирается целиком из хранилища.
+ * <p>
+ * Похожие на фильм - фильмы с наибольшим числом совместных лайков с ним.
+ * Рекомендации пользователю - фильмы, которые он не лайкал, по сумме совместных лайков с его фильмами
+ */
+@Service
+@Slf4j
+public class RecommendationService implements FilmService.LikeListener {
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmStorage filmStorage;
+    private final long rebuildIntervalMs;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private CoLikes coLikes = new CoLikes();
+    // События, пришедшие во время пересборки: применяются к новой матрице перед заменой
+    private List<Consumer<CoLikes>> pendingEvents;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public RecommendationService(FilmService filmService,
+                                 UserService userService,
+                                 FilmStorage filmStorage,
+                                 @Value("${filmorate.recommendations.rebuild-interval-ms:3600000}") long rebuildIntervalMs) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.filmStorage = filmStorage;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        filmService.addLikeListener(this);
+        filmService.addDeleteListener(filmId -> apply(model -> model.removeFilm(filmId)));
+        userService.addDeleteListener(userId -> apply(model -> model.removeUser(userId)));
+    }
+
+    /**
+     * Совместные лайки: лайки хранятся множествами в обе стороны, а счетчики меняются только когда лайк
+     * действительно добавился или удалился. Поэтому повторное событие о том же лайке ничего не меняет
+     */
+    static class CoLikes {
+        private final Map<Integer, IntHashSet> filmIdsByUser = new HashMap<>();
+        private final Map<Integer, IntHashSet> userIdsByFilm = new HashMap<>();
+        private final Map<Integer, IntIntHashMap> countsByFilm = new HashMap<>();
+
+        void addLike(int userId, int filmId) {
+            IntHashSet filmIds = filmIdsByUser.computeIfAbsent(userId, id -> new IntHashSet());
+            if (!filmIds.add(filmId)) {
+                return;
+            }
+            userIdsByFilm.computeIfAbsent(filmId, id -> new IntHashSet()).add(userId);
+            IntIntHashMap counts = countsByFilm.computeIfAbsent(filmId, id -> new IntIntHashMap());
+            filmIds.forEach(otherId -> {
+                if (otherId != filmId) {
+                    counts.addTo(otherId, 1);
+                    countsByFilm.computeIfAbsent(otherId, id -> new IntIntHashMap()).addTo(filmId, 1);
+                }
+            });
+        }
+
+        void removeLike(int userId, int filmId) {
+            IntHashSet filmIds = filmIdsByUser.get(userId);
+            if (filmIds == null || !filmIds.remove(filmId)) {
+                return;
+            }
+            if (filmIds.isEmpty()) {
+                filmIdsByUser.remove(userId);
+            }
+            IntHashSet userIds = userIdsByFilm.get(filmId);
+            userIds.remove(userId);
+            if (userIds.isEmpty()) {
+                userIdsByFilm.remove(filmId);
+            }
+            filmIds.forEach(otherId -> {
+                decrement(filmId, otherId);
+                decrement(otherId, filmId);
+            });
+        }
+
+        void removeUser(int userId) {
+            IntHashSet filmIds = filmIdsByUser.get(userId);
+            if (filmIds != null) {
+                for (int filmId : filmIds.toSortedArray()) {
+                    removeLike(userId, filmId);
+                }
+            }
+        }
+
+        void removeFilm(int filmId) {
+            IntHashSet userIds = userIdsByFilm.get(filmId);
+            if (userIds != null) {
+                for (int userId : userIds.toSortedArray()) {
+                    removeLike(userId, filmId);
+                }
+            }
+        }
+
+        private void decrement(int filmId, int otherId) {
+            IntIntHashMap counts = countsByFilm.get(filmId);
+            if (counts != null && counts.addTo(otherId, -1) == 0 && counts.isEmpty()) {
+                countsByFilm.remove(filmId);
+            }
+        }
+
+        List<Integer> similar(int filmId, int count) {
+            IntIntHashMap counts = countsByFilm.get(filmId);
+            if (counts == null) {
+                return new ArrayList<>();
+            }
+            return top(counts, count, null);
+        }
+
+        List<Integer> recommended(int userId, int count) {
+            IntHashSet filmIds = filmIdsByUser.get(userId);
+            if (filmIds == null) {
+                return new ArrayList<>();
+            }
+            IntIntHashMap scores = new IntIntHashMap();
+            filmIds.forEach(filmId -> {
+                IntIntHashMap counts = countsByFilm.get(filmId);
+                if (counts != null) {
+                    counts.forEach(scores::addTo);
+                }
+            });
+            return top(scores, count, filmIds);
+        }
+
+        /**
+         * Первые count ИД по убыванию значения, при равенстве по возрастанию ИД: куча из count элементов,
+         * без сортировки всей строки матрицы
+         */
+        private static List<Integer> top(IntIntHashMap scores, int count, IntHashSet excluded) {
+            // Наверху кучи худший из отобранных
+            PriorityQueue<long[]> best = new PriorityQueue<>(count + 1, (a, b) -> a[1] != b[1]
+                    ? Long.compare(a[1], b[1]) : Long.compare(b[0], a[0]));
+            scores.forEach((filmId, score) -> {
+                if (excluded != null && excluded.contains(filmId)) {
+                    return;
+                }
+                best.add(new long[]{filmId, score});
+                if (best.size() > count) {
+                    best.poll();
+                }
+            });
+            List<Integer> result = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                result.add(0, (int) best.poll()[0]);
+            }
+            return result;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendations-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Пересобирает матрицу по всем лайкам из хранилища. Запросы в это время обслуживает старая матрица
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            pendingEvents = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+        CoLikes rebuilt = new CoLikes();
+        boolean completed = false;
+        try {
+            filmStorage.forEachLike(rebuilt::addLike);
+            completed = true;
+        } finally {
+            writeLock.lock();
+            try {
+                // События после начала чтения могли попасть и в прочитанные лайки, повтор ничего не меняет.
+                // Замена в той же блокировке: иначе событие между повтором и заменой попало бы только в старую матрицу
+                if (completed) {
+                    pendingEvents.forEach(event -> event.accept(rebuilt));
+                    coLikes = rebuilt;
+                }
+                pendingEvents = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        log.debug("Матрица совместных лайков пересобрана за {} мс, фильмов: {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), rebuilt.countsByFilm.size());
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Ошибка пересборки матрицы совместных лайков", e);
+        }
+    }
+
+    @Override
+    public void onLikeAdded(Integer userId, Integer filmId) {
+        apply(model -> model.addLike(userId, filmId));
+    }
+
+    @Override
+    public void onLikeRemoved(Integer userId, Integer filmId) {
+        apply(model -> model.removeLike(userId, filmId));
+    }
+
+    private void apply(Consumer<CoLikes> event) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            event.accept(coLikes);
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public List<Film> getSimilarFilms(Integer filmId, Integer count) {
+        validateCount(count);
+        filmService.trowIfNotExist(filmId);
+        List<Integer> ids;
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            ids = coLikes.similar(filmId, count);
+        } finally {
+            readLock.unlock();
+        }
+        return filmService.getFilmsByIds(ids);
+    }
+
+    public List<Film> getRecommendations(Integer userId, Integer count) {
+        validateCount(count);
+        userService.trowIfNotExist(userId);
+        List<Integer> ids;
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            ids = coLikes.recommended(userId, count);
+        } finally {
+            readLock.unlock();
+        }
+        return filmService.getFilmsByIds(ids);
+    }
+
+    private void validateCount(Integer count) {
+        if (count == null || count <= 0 || count > AbstractService.MAX_PAGE_SIZE) {
+            log.debug("Некорректное количество рекомендаций: {}", count);
+            throw new ValidationException("Количество должно быть от 1 до " + AbstractService.MAX_PAGE_SIZE);
+        }
+    }
+}
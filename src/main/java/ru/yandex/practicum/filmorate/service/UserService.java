@@ -3,18 +3,21 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class UserService extends AbstractService<User> {
     private final UserStorage storage;
+    private final List<Consumer<Integer>> deleteListeners = new CopyOnWriteArrayList<>();
 
     @Autowired
     public UserService(UserStorage storage) {
@@ -30,26 +33,38 @@ public class UserService extends AbstractService<User> {
         return super.create(newUser);
     }
 
+    @Override
+    public void delete(Integer id) {
+        super.delete(id);
+        deleteListeners.forEach(listener -> listener.accept(id));
+    }
+
+    /**
+     * Подписка на удаление пользователя, например, чтобы сбросить данные, зависящие от его лайков
+     *
+     * @param listener - получает ИД удаленного пользователя
+     */
+    public void addDeleteListener(Consumer<Integer> listener) {
+        deleteListeners.add(listener);
+    }
+
     public List<User> getFriendsByUserId(Integer id) {
         trowIfUserNotExist(id);
         return storage.getFriendsByUserId(id);
     }
 
     public List<User> getCommonFriends(Integer userId, Integer otherId) {
-        trowIfUserNotExist(userId);
-        trowIfUserNotExist(otherId);
+        trowIfAnyNotExist(Arrays.asList(userId, otherId));
         return storage.getCommonFriends(userId, otherId);
     }
 
     public void addFriendship(Integer userId, Integer friendId) {
-        trowIfUserNotExist(userId);
-        trowIfUserNotExist(friendId);
+        trowIfAnyNotExist(Arrays.asList(userId, friendId));
         storage.addFriendship(userId, friendId);
     }
 
     public void removeFriendship(Integer userId, Integer friendId) {
-        trowIfUserNotExist(userId);
-        trowIfUserNotExist(friendId);
+        trowIfAnyNotExist(Arrays.asList(userId, friendId));
         storage.removeFriendship(userId, friendId);
     }
 
@@ -73,9 +88,6 @@ public class UserService extends AbstractService<User> {
     }
 
     private void trowIfUserNotExist(Integer id) {
-        if (getById(id) == null) {
-            log.debug("Не найден пользователь с таким ИД: {}", id);
-            throw new NotFoundException();
-        }
+        trowIfNotExist(id);
     }
 }
\ No newline at end of file
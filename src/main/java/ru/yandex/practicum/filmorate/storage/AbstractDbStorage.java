@@ -1,20 +1,74 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import ru.yandex.practicum.filmorate.model.HasId;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public abstract class AbstractDbStorage<T extends HasId> implements AbstractStorage<T> {
+    // Сколько последних ИД существующих объектов помнить, чтобы не ходить за ними в базу
+    private static final int EXISTING_IDS_CACHE_SIZE = 10_000;
+    // Сколько строк драйвер забирает за раз при потоковом чтении
+    protected static final int STREAM_FETCH_SIZE = 500;
 
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final RowMapper<T> mapper;
+    private final String resourceName;
+    private final String resourceIdName;
+    // Запросы собираются один раз по именам таблицы и колонки ИД из конструктора
+    private final String getByIdSql;
+    private final String deleteSql;
+    private final String findAllSql;
+    private final String findAllOrderedSql;
+    private final String findPageSql;
+    private final String existsSql;
+    private final String existingIdsSql;
+    // Только положительные ответы: объект удаляется через это же хранилище, которое и чистит кэш
+    private final Map<Integer, Boolean> existingIds = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Boolean> eldest) {
+                    return size() > EXISTING_IDS_CACHE_SIZE;
+                }
+            });
 
-    public AbstractDbStorage(JdbcTemplate jdbcTemplate, RowMapper<T> mapper) {
+    /**
+     * @param resourceName   - таблица объектов
+     * @param resourceIdName - колонка ИД в ней
+     */
+    public AbstractDbStorage(JdbcTemplate jdbcTemplate, RowMapper<T> mapper, String resourceName, String resourceIdName) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
         this.mapper = mapper;
+        this.resourceName = resourceName;
+        this.resourceIdName = resourceIdName;
+        this.getByIdSql = "SELECT * FROM " + getResourceName() + " WHERE " + getResourceIdName() + " = ?";
+        this.deleteSql = "DELETE FROM " + getResourceName() + " WHERE " + getResourceIdName() + " = ?";
+        this.findAllSql = "SELECT * FROM " + getResourceName();
+        this.findAllOrderedSql = "SELECT * FROM " + getResourceName() + " ORDER BY " + getResourceIdName();
+        this.findPageSql = "SELECT * FROM " + getResourceName() + " WHERE " + getResourceIdName() + " > ? " +
+                "ORDER BY " + getResourceIdName() + " LIMIT ?";
+        this.existsSql = "SELECT " + getResourceIdName() + " FROM " + getResourceName() +
+                " WHERE " + getResourceIdName() + " = ?";
+        this.existingIdsSql = "SELECT " + getResourceIdName() + " FROM " + getResourceName() +
+                " WHERE " + getResourceIdName() + " IN (:ids)";
     }
 
     @Override
@@ -25,9 +79,7 @@ public abstract class AbstractDbStorage<T extends HasId> implements AbstractStor
 
     @Override
     public Optional<T> getById(Integer id) {
-        String sql = "SELECT * FROM " + getResourceName() +
-                " WHERE " + getResourceIdName() + " = ?";
-        List<T> result = jdbcTemplate.query(sql, mapper, id);
+        List<T> result = jdbcTemplate.query(getByIdSql, mapper, id);
         if (!result.isEmpty()) {
             return Optional.of(result.get(0));
         } else {
@@ -35,19 +87,96 @@ public abstract class AbstractDbStorage<T extends HasId> implements AbstractStor
         }
     }
 
+    @Override
+    public void forEachOrdered(Consumer<? super T> action) {
+        queryStreaming(findAllOrderedSql, rs -> action.accept(mapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Читает результат запроса курсором по STREAM_FETCH_SIZE строк, не держа весь результат в памяти
+     */
+    protected void queryStreaming(String sql, RowCallbackHandler rowHandler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, rowHandler);
+    }
+
+    @Override
+    public Page<T> findPage(PageCursor after, int limit) {
+        Integer afterId = after == null ? Integer.MIN_VALUE : after.getId();
+        // Читаем на один объект больше, чтобы понять, есть ли следующая страница
+        return toPage(jdbcTemplate.query(findPageSql, mapper, afterId, limit + 1), limit);
+    }
+
+    /**
+     * Обрезает список, прочитанный с запасом в один объект, до страницы с курсором по ИД последнего объекта
+     */
+    protected Page<T> toPage(List<T> items, int limit) {
+        if (items.size() <= limit) {
+            return Page.<T>builder().items(items).build();
+        }
+        List<T> pageItems = items.subList(0, limit);
+        PageCursor next = PageCursor.builder().id(pageItems.get(limit - 1).getId()).build();
+        return Page.<T>builder().items(pageItems).nextCursor(next.encode()).build();
+    }
+
+    @Override
+    public boolean exists(Integer id) {
+        if (id == null) {
+            return false;
+        }
+        if (existingIds.get(id) != null) {
+            return true;
+        }
+        boolean exists = !jdbcTemplate.queryForList(existsSql, Integer.class, id).isEmpty();
+        if (exists) {
+            rememberExistingId(id);
+        }
+        return exists;
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        if (ids.contains(null)) {
+            return false;
+        }
+        Set<Integer> unknownIds = new HashSet<>();
+        ids.stream().filter(id -> existingIds.get(id) == null).forEach(unknownIds::add);
+        if (unknownIds.isEmpty()) {
+            return true;
+        }
+        List<Integer> foundIds = namedParameterJdbcTemplate.queryForList(existingIdsSql,
+                new MapSqlParameterSource("ids", unknownIds), Integer.class);
+        foundIds.forEach(this::rememberExistingId);
+        return foundIds.size() == unknownIds.size();
+    }
+
     @Override
     public void delete(Integer id) {
-        String sql = "DELETE FROM " + getResourceName() + " WHERE " + getResourceIdName() + " = ?";
-        jdbcTemplate.update(sql, id);
+        jdbcTemplate.update(deleteSql, id);
+        existingIds.remove(id);
+    }
+
+    /**
+     * Запоминает ИД существующего объекта, например, только что созданного
+     */
+    protected void rememberExistingId(Integer id) {
+        existingIds.put(id, Boolean.TRUE);
     }
 
     @Override
     public List<T> findAll() {
-        String sql = "SELECT * FROM " + getResourceName();
-        return jdbcTemplate.query(sql, mapper);
+        return jdbcTemplate.query(findAllSql, mapper);
     }
 
-    protected abstract String getResourceIdName();
+    protected String getResourceIdName() {
+        return resourceIdName;
+    }
 
-    protected abstract String getResourceName();
+    protected String getResourceName() {
+        return resourceName;
+    }
 }
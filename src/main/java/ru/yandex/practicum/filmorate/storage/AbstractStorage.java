@@ -1,9 +1,13 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.HasId;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface AbstractStorage<T extends HasId> {
     T create(T newObject);
@@ -12,7 +16,32 @@ public interface AbstractStorage<T extends HasId> {
 
     Optional<T> getById(Integer id);
 
+    /**
+     * Проверка существования без загрузки самого объекта
+     */
+    boolean exists(Integer id);
+
+    /**
+     * @return true если существуют все объекты с переданными ИД
+     */
+    boolean existsAll(Collection<Integer> ids);
+
     void delete(Integer id);
 
     List<T> findAll();
+
+    /**
+     * Страница объектов по возрастанию ИД, начиная после курсора
+     *
+     * @param after - позиция последнего прочитанного объекта, null для первой страницы
+     * @param limit - размер страницы
+     */
+    Page<T> findPage(PageCursor after, int limit);
+
+    /**
+     * Передает все объекты по возрастанию ИД по одному, не собирая их в список
+     *
+     * @param action - получает объекты по мере чтения
+     */
+    void forEachOrdered(Consumer<? super T> action);
 }
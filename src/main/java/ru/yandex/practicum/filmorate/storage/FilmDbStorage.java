@@ -1,99 +1,222 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.*;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+// В профиле inmemory запросы обслуживают хранилища в памяти
 @Component
 @Primary
+@Profile("!inmemory")
+@Slf4j
 public class FilmDbStorage extends AbstractDbStorage<Film> implements FilmStorage {
+    // Ограничение на количество ИД в одном IN (...), чтобы не упираться в размер запроса на больших списках
+    private static final int GENRES_BATCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final RowMapper<Film> mapper;
-    private final RowMapper<Genre> genreMapper;
-    private final RowMapper<Mpa> mpaMapper;
+    private final boolean recalculateLikesOnStartup;
+    // Метаданные таблицы читаются при первой вставке, дальше используется уже скомпилированный запрос
+    private final SimpleJdbcInsert filmInsert;
+    private final ReferenceDataCache referenceData;
+    // Перечитывать фильм из базы после записи, а не собирать его из запроса
+    private final boolean strictReadBack;
 
     @Autowired
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
-        super(jdbcTemplate, new FilmMapper());
-        this.mapper = new FilmMapper();
-        this.genreMapper = new GenreMapper();
-        this.mpaMapper = new MpaMapper();
+    public FilmDbStorage(JdbcTemplate jdbcTemplate,
+                         ReferenceDataCache referenceData,
+                         @Value("${filmorate.likes.recalculate-on-startup:true}") boolean recalculateLikesOnStartup,
+                         @Value("${filmorate.storage.strict-read-back:false}") boolean strictReadBack) {
+        super(jdbcTemplate, new FilmMapper(mpaId -> referenceData.getMpaById(mpaId).orElse(null)), "film", "film_id");
+        this.mapper = new FilmMapper(mpaId -> referenceData.getMpaById(mpaId).orElse(null));
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.referenceData = referenceData;
+        this.recalculateLikesOnStartup = recalculateLikesOnStartup;
+        this.strictReadBack = strictReadBack;
+        this.filmInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("film")
+                .usingColumns("name", "mpa_id", "description", "release_date", "duration")
+                .usingGeneratedKeyColumns("film_id");
     }
 
     @Override
     public Film create(Film newObject) {
-        SimpleJdbcInsert simpleJdbcInsert =
-                new SimpleJdbcInsert(jdbcTemplate).withTableName(getResourceName())
-                        .usingGeneratedKeyColumns(getResourceIdName());
-
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("name", newObject.getName());
         parameters.put("mpa_id", newObject.getMpa().getId());
         parameters.put("description", newObject.getDescription());
         parameters.put("release_date", java.sql.Date.valueOf(newObject.getReleaseDate()));
         parameters.put("duration", newObject.getDuration());
-        Integer key = simpleJdbcInsert.executeAndReturnKey(parameters).intValue();
+        Integer key = filmInsert.executeAndReturnKey(parameters).intValue();
         addAllFilmGenres(newObject.getGenres(), key);
-        return getById(key).orElseThrow();
+        rememberExistingId(key);
+        if (strictReadBack) {
+            return getById(key).orElseThrow();
+        }
+        return toStoredFilm(newObject, key);
+    }
+
+    /**
+     * Собирает фильм в том виде, в котором его вернул бы getById, без повторного чтения из базы:
+     * названия рейтинга и жанров берутся из справочников, жанры без повторов и по возрастанию ИД
+     */
+    private Film toStoredFilm(Film film, Integer id) {
+        Mpa mpa = film.getMpa();
+        if (mpa.getId() != null) {
+            mpa = referenceData.resolveMpa(mpa.getId());
+        }
+        Set<Integer> genreIds = new TreeSet<>();
+        toGenreIds(film.getGenres()).stream().filter(Objects::nonNull).forEach(genreIds::add);
+        List<Genre> genres = new ArrayList<>(genreIds.size());
+        genreIds.forEach(genreId -> genres.add(referenceData.resolveGenre(genreId)));
+        return film.toBuilder()
+                .id(id)
+                .mpa(mpa)
+                .genres(genres)
+                .build();
     }
 
     @Override
     public Optional<Film> getById(Integer id) {
-        String sql = "SELECT f.*, m.mpa_id, m.name AS mpa_name FROM "
-                + getResourceName() + " AS f " +
-                "LEFT JOIN mpa AS m ON f.mpa_id = m.mpa_id " +
-                "WHERE " + getResourceIdName() + " = ? ";
-        List<Film> result = jdbcTemplate.query(sql, mapper, id);
+        String sql = "SELECT * FROM film WHERE film_id = ?";
+        List<Film> result = populateFilms(jdbcTemplate.query(sql, mapper, id));
         if (!result.isEmpty()) {
-            return Optional.of(populateFilm(result.get(0)));
+            return Optional.of(result.get(0));
         } else {
             return Optional.empty();
         }
     }
 
-    private Film populateFilm(Film film) {
-        film.setGenres(findGenresByFilmId(film.getId()));
-        return film;
-    }
-
-    private List<Genre> findGenresByFilmId(Integer id) {
-        String sql = "SELECT DISTINCT(g.genre_id), g.name FROM genre AS g " +
-                " JOIN film_genres AS fg ON g.genre_id = fg.genre_id AND fg.film_id = ?";
-        return jdbcTemplate.query(sql, genreMapper, id);
+    /**
+     * Заполняет жанры сразу для всего списка фильмов, одним запросом на каждые GENRES_BATCH_SIZE фильмов
+     *
+     * @param films - фильмы без жанров
+     * @return тот же список фильмов с заполненными жанрами
+     */
+    private List<Film> populateFilms(List<Film> films) {
+        Map<Integer, Film> filmsById = new LinkedHashMap<>();
+        films.forEach(film -> {
+            film.setGenres(new ArrayList<>());
+            filmsById.put(film.getId(), film);
+        });
+        List<Integer> ids = new ArrayList<>(filmsById.keySet());
+        // Названия жанров берутся из справочника, соединяться с таблицей genre не нужно
+        String sql = "SELECT DISTINCT film_id, genre_id FROM film_genres " +
+                "WHERE film_id IN (:ids) AND genre_id IS NOT NULL " +
+                "ORDER BY film_id, genre_id";
+        for (int i = 0; i < ids.size(); i += GENRES_BATCH_SIZE) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource("ids",
+                    ids.subList(i, Math.min(i + GENRES_BATCH_SIZE, ids.size())));
+            namedParameterJdbcTemplate.query(sql, parameters, rs -> {
+                filmsById.get(rs.getInt("film_id")).getGenres().add(referenceData.resolveGenre(rs.getInt("genre_id")));
+            });
+        }
+        return films;
     }
 
     @Override
     public Film update(Film updatedObject) {
-        String sql = "UPDATE " + getResourceName() +
-                " SET name = ?, description = ?, release_date = ?, mpa_id = ?, duration = ? " +
-                " WHERE " + getResourceIdName() + " = ?";
-        jdbcTemplate.update(sql, updatedObject.getName(),
+        String sql = "UPDATE film " +
+                "SET name = ?, description = ?, release_date = ?, mpa_id = ?, duration = ? " +
+                "WHERE film_id = ?";
+        int updated = jdbcTemplate.update(sql, updatedObject.getName(),
                 updatedObject.getDescription(), updatedObject.getReleaseDate(),
                 updatedObject.getMpa().getId(), updatedObject.getDuration(), updatedObject.getId());
-        deleteFilmGenresById(updatedObject.getId());
-        addAllFilmGenres(updatedObject.getGenres(), updatedObject.getId());
-        return getById(updatedObject.getId()).orElseThrow();
+        if (updated == 0) {
+            throw new NoSuchElementException();
+        }
+        updateFilmGenres(updatedObject.getGenres(), updatedObject.getId());
+        if (strictReadBack) {
+            return getById(updatedObject.getId()).orElseThrow();
+        }
+        return toStoredFilm(updatedObject, updatedObject.getId());
     }
 
     private void addAllFilmGenres(List<Genre> genres, Integer filmId) {
-        if (genres != null && !genres.isEmpty()) {
-            genres.forEach(genre -> {
-                String sql = "INSERT INTO film_genres(film_id, genre_id) " +
-                        "VALUES(?, ?) ";
-                jdbcTemplate.update(sql, filmId, genre.getId());
-            });
+        insertFilmGenres(toGenreIds(genres), filmId);
+    }
+
+    /**
+     * Приводит жанры фильма в базе к переданному списку: удаляет и добавляет только изменившиеся жанры,
+     * так что обновление фильма с теми же жанрами не меняет ни одной строки в film_genres
+     */
+    private void updateFilmGenres(List<Genre> genres, Integer filmId) {
+        Set<Integer> newGenreIds = toGenreIds(genres);
+        String sql = "SELECT genre_id FROM film_genres WHERE film_id = ?";
+        Set<Integer> currentGenreIds = new HashSet<>(jdbcTemplate.queryForList(sql, Integer.class, filmId));
+
+        Set<Integer> removedGenreIds = new HashSet<>(currentGenreIds);
+        removedGenreIds.removeAll(newGenreIds);
+        Set<Integer> addedGenreIds = new LinkedHashSet<>(newGenreIds);
+        addedGenreIds.removeAll(currentGenreIds);
+
+        deleteFilmGenres(removedGenreIds, filmId);
+        insertFilmGenres(addedGenreIds, filmId);
+    }
+
+    private Set<Integer> toGenreIds(List<Genre> genres) {
+        Set<Integer> genreIds = new LinkedHashSet<>();
+        if (genres != null) {
+            genres.forEach(genre -> genreIds.add(genre.getId()));
+        }
+        return genreIds;
+    }
+
+    private void insertFilmGenres(Collection<Integer> genreIds, Integer filmId) {
+        if (genreIds.isEmpty()) {
+            return;
         }
+        String sql = "INSERT INTO film_genres(film_id, genre_id) " +
+                "VALUES(?, ?) ";
+        jdbcTemplate.batchUpdate(sql, toBatchArgs(genreIds, filmId));
+    }
+
+    private void deleteFilmGenres(Collection<Integer> genreIds, Integer filmId) {
+        if (genreIds.isEmpty()) {
+            return;
+        }
+        String sql = "DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?";
+        jdbcTemplate.batchUpdate(sql, toBatchArgs(genreIds, filmId));
+    }
+
+    private List<Object[]> toBatchArgs(Collection<Integer> genreIds, Integer filmId) {
+        List<Object[]> batchArgs = new ArrayList<>(genreIds.size());
+        genreIds.forEach(genreId -> batchArgs.add(new Object[]{filmId, genreId}));
+        return batchArgs;
     }
 
     @Override
@@ -114,73 +237,265 @@ public class FilmDbStorage extends AbstractDbStorage<Film> implements FilmStorag
     }
 
     @Override
-    protected String getResourceIdName() {
-        return "film_id";
+    @Transactional
+    public boolean addUserLikeToFilm(Integer userId, Integer filmId) {
+        String sql = "INSERT INTO favorite_films(film_id, user_id) " +
+                "SELECT ?, ? FROM dual WHERE NOT EXISTS " +
+                "(SELECT 1 FROM favorite_films WHERE film_id = ? AND user_id = ?)";
+        try {
+            if (jdbcTemplate.update(sql, filmId, userId, filmId, userId) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            // Такой же лайк параллельно успел добавить другой запрос
+            return false;
+        }
+        changeLikesCount(filmId, 1);
+        return true;
     }
 
     @Override
-    protected String getResourceName() {
-        return "film";
+    @Transactional
+    public boolean removeUserLikeFromFilm(Integer userId, Integer filmId) {
+        String sql = "DELETE FROM favorite_films WHERE film_id = ? AND user_id = ?";
+        if (jdbcTemplate.update(sql, filmId, userId) > 0) {
+            changeLikesCount(filmId, -1);
+            return true;
+        }
+        return false;
+    }
+
+    private void changeLikesCount(Integer filmId, int delta) {
+        String sql = "UPDATE film SET likes_count = likes_count + ? WHERE film_id = ?";
+        jdbcTemplate.update(sql, delta, filmId);
     }
 
     @Override
-    public void addUserLikeToFilm(Integer userId, Integer filmId) {
+    @Transactional
+    public List<Like> addUserLikesToFilms(List<Like> likes) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
         String sql = "INSERT INTO favorite_films(film_id, user_id) " +
-                "VALUES(?, ?) ";
-        jdbcTemplate.update(sql, filmId, userId);
+                "SELECT ?, ? FROM dual WHERE NOT EXISTS " +
+                "(SELECT 1 FROM favorite_films WHERE film_id = ? AND user_id = ?)";
+        int[] counts = jdbcTemplate.batchUpdate(sql, likes, likes.size(), (ps, like) -> {
+            ps.setInt(1, like.getFilmId());
+            ps.setInt(2, like.getUserId());
+            ps.setInt(3, like.getFilmId());
+            ps.setInt(4, like.getUserId());
+        })[0];
+        List<Like> added = applied(likes, counts);
+        changeLikesCounts(added, 1);
+        return added;
     }
 
     @Override
-    public void removeUserLikeFromFilm(Integer userId, Integer filmId) {
+    @Transactional
+    public List<Like> removeUserLikesFromFilms(List<Like> likes) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
         String sql = "DELETE FROM favorite_films WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        int[] counts = jdbcTemplate.batchUpdate(sql, likes, likes.size(), (ps, like) -> {
+            ps.setInt(1, like.getFilmId());
+            ps.setInt(2, like.getUserId());
+        })[0];
+        List<Like> removed = applied(likes, counts);
+        changeLikesCounts(removed, -1);
+        return removed;
+    }
+
+    private List<Like> applied(List<Like> likes, int[] counts) {
+        List<Like> result = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                result.add(likes.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Один UPDATE счетчика на фильм, а не на каждый лайк пачки
+     */
+    private void changeLikesCounts(List<Like> likes, int sign) {
+        Map<Integer, Integer> deltaByFilm = new HashMap<>();
+        likes.forEach(like -> deltaByFilm.merge(like.getFilmId(), sign, Integer::sum));
+        if (deltaByFilm.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE film SET likes_count = likes_count + ? WHERE film_id = ?";
+        List<Object[]> args = new ArrayList<>();
+        deltaByFilm.forEach((filmId, delta) -> args.add(new Object[]{delta, filmId}));
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recalculateLikesCountsOnStartup() {
+        if (recalculateLikesOnStartup) {
+            recalculateLikesCounts();
+        }
+    }
+
+    /**
+     * Пересчитывает счетчики лайков фильмов по таблице favorite_films.
+     * Вызывается при старте приложения (если не выключено свойством filmorate.likes.recalculate-on-startup)
+     * и может быть вызван вручную, если счетчики разошлись с данными
+     */
+    public void recalculateLikesCounts() {
+        String sql = "UPDATE film AS f SET likes_count = " +
+                "(SELECT COUNT(DISTINCT ff.user_id) FROM favorite_films AS ff WHERE ff.film_id = f.film_id)";
+        int updated = jdbcTemplate.update(sql);
+        log.debug("Пересчитаны счетчики лайков для {} фильмов", updated);
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        Map<Integer, Film> filmsById = new HashMap<>();
+        String sql = "SELECT * FROM film WHERE film_id IN (:ids)";
+        for (int i = 0; i < ids.size(); i += GENRES_BATCH_SIZE) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource("ids",
+                    ids.subList(i, Math.min(i + GENRES_BATCH_SIZE, ids.size())));
+            namedParameterJdbcTemplate.query(sql, parameters, mapper).forEach(film -> filmsById.put(film.getId(), film));
+        }
+        populateFilms(new ArrayList<>(filmsById.values()));
+        return ids.stream().map(filmsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> action) {
+        String sql = "SELECT user_id, film_id FROM favorite_films";
+        queryStreaming(sql, rs -> action.accept(rs.getInt("user_id"), rs.getInt("film_id")));
     }
 
     @Override
     public List<Film> getFilmsByLikes(Integer from, Integer limit) {
-        String sql = "SELECT f.*, m.mpa_id, m.name AS mpa_name, COUNT(DISTINCT(ff.user_id)) AS likes FROM film AS f " +
-                "LEFT JOIN mpa AS m ON f.mpa_id = m.mpa_id " +
-                "LEFT JOIN favorite_films AS ff ON f.film_id = ff.film_id " +
-                "GROUP BY f.FILM_ID " +
-                "ORDER BY likes DESC " +
+        String sql = "SELECT * FROM film " +
+                "ORDER BY likes_count DESC, film_id " +
                 "LIMIT ? OFFSET ?";
-        return jdbcTemplate.query(sql, mapper, limit, from).stream().map(this::populateFilm).collect(Collectors.toList());
+        return populateFilms(jdbcTemplate.query(sql, mapper, limit, from));
+    }
+
+    /**
+     * Фильмы вместе с жанрами за один проход: строки фильма с его жанрами идут подряд,
+     * фильм отдается как только началась строка следующего фильма
+     */
+    @Override
+    public void forEachOrdered(Consumer<? super Film> action) {
+        String sql = "SELECT f.*, fg.genre_id FROM film AS f " +
+                "LEFT JOIN film_genres AS fg ON fg.film_id = f.film_id " +
+                "ORDER BY f.film_id, fg.genre_id";
+        FilmGenresFolder folder = new FilmGenresFolder(action);
+        queryStreaming(sql, folder);
+        folder.flush();
+    }
+
+    private class FilmGenresFolder implements RowCallbackHandler {
+        private final Consumer<? super Film> action;
+        private Film current;
+
+        private FilmGenresFolder(Consumer<? super Film> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            int filmId = rs.getInt("film_id");
+            if (current == null || current.getId() != filmId) {
+                flush();
+                current = mapper.mapRow(rs, rs.getRow());
+                current.setGenres(new ArrayList<>());
+            }
+            int genreId = rs.getInt("genre_id");
+            if (rs.wasNull()) {
+                return;
+            }
+            List<Genre> genres = current.getGenres();
+            // Повторы в film_genres идут подряд из-за сортировки
+            if (genres.isEmpty() || genres.get(genres.size() - 1).getId() != genreId) {
+                genres.add(referenceData.resolveGenre(genreId));
+            }
+        }
+
+        private void flush() {
+            if (current != null) {
+                action.accept(current);
+                current = null;
+            }
+        }
+    }
+
+    @Override
+    public Page<Film> findPage(PageCursor after, int limit) {
+        String sql = "SELECT * FROM film WHERE film_id > ? ORDER BY film_id LIMIT ?";
+        Integer afterId = after == null ? Integer.MIN_VALUE : after.getId();
+        Page<Film> page = toPage(jdbcTemplate.query(sql, mapper, afterId, limit + 1), limit);
+        populateFilms(page.getItems());
+        return page;
+    }
+
+    @Override
+    public Page<Film> getFilmsByLikesPage(PageCursor after, int limit) {
+        List<Integer> likes = new ArrayList<>();
+        RowMapper<Film> mapperWithLikes = (rs, rowNum) -> {
+            likes.add(rs.getInt("likes_count"));
+            return mapper.mapRow(rs, rowNum);
+        };
+        List<Film> films;
+        if (after == null) {
+            String sql = "SELECT * FROM film ORDER BY likes_count DESC, film_id LIMIT ?";
+            films = jdbcTemplate.query(sql, mapperWithLikes, limit + 1);
+        } else {
+            // Условие совпадает с порядком индекса film_likes_count_idx, база продолжает чтение с позиции курсора
+            String sql = "SELECT * FROM film " +
+                    "WHERE likes_count < ? OR (likes_count = ? AND film_id > ?) " +
+                    "ORDER BY likes_count DESC, film_id LIMIT ?";
+            films = jdbcTemplate.query(sql, mapperWithLikes,
+                    after.getLikes(), after.getLikes(), after.getId(), limit + 1);
+        }
+        if (films.size() <= limit) {
+            return Page.<Film>builder().items(populateFilms(films)).build();
+        }
+        List<Film> pageFilms = populateFilms(films.subList(0, limit));
+        Film last = pageFilms.get(limit - 1);
+        PageCursor next = PageCursor.builder().likes(likes.get(limit - 1)).id(last.getId()).build();
+        return Page.<Film>builder().items(pageFilms).nextCursor(next.encode()).build();
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCountByFilms() {
+        String sql = "SELECT film_id, likes_count FROM film";
+        Map<Integer, Integer> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getInt("film_id"), rs.getInt("likes_count"));
+        });
+        return result;
     }
 
     @Override
     public List<Film> findAll() {
-        String sql = "SELECT f.*, m.mpa_id, m.name AS mpa_name FROM film AS f " +
-                "LEFT JOIN mpa AS m ON f.mpa_id = m.mpa_id ";
-        return jdbcTemplate.query(sql, mapper).stream().map(this::populateFilm).collect(Collectors.toList());
+        String sql = "SELECT * FROM film ORDER BY film_id";
+        return populateFilms(jdbcTemplate.query(sql, mapper));
     }
 
+    @Override
     public List<Genre> getAllGenres() {
-        String sql = "SELECT * FROM genre ";
-        return jdbcTemplate.query(sql, genreMapper);
+        return referenceData.getAllGenres();
     }
 
+    @Override
     public Optional<Genre> getGenreById(Integer id) {
-        String sql = "SELECT * FROM genre WHERE genre_id = ?";
-        List<Genre> result = jdbcTemplate.query(sql, genreMapper, id);
-        if (!result.isEmpty()) {
-            return Optional.of(result.get(0));
-        } else {
-            return Optional.empty();
-        }
+        return referenceData.getGenreById(id);
     }
 
+    @Override
     public List<Mpa> getAllMpa() {
-        String sql = "SELECT * FROM mpa ";
-        return jdbcTemplate.query(sql, mpaMapper);
+        return referenceData.getAllMpa();
     }
 
+    @Override
     public Optional<Mpa> getMpaById(Integer id) {
-        String sql = "SELECT * FROM mpa WHERE mpa_id = ?";
-        List<Mpa> result = jdbcTemplate.query(sql, mpaMapper, id);
-        if (!result.isEmpty()) {
-            return Optional.of(result.get(0));
-        } else {
-            return Optional.empty();
-        }
+        return referenceData.getMpaById(id);
     }
 }
@@ -2,18 +2,68 @@ package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 public interface FilmStorage extends AbstractStorage<Film> {
-    void addUserLikeToFilm(Integer userId, Integer filmId);
+    /**
+     * @return true если лайк добавлен, false если такой лайк уже был
+     */
+    boolean addUserLikeToFilm(Integer userId, Integer filmId);
 
-    void removeUserLikeFromFilm(Integer userId, Integer filmId);
+    /**
+     * @return true если лайк удален, false если такого лайка не было
+     */
+    boolean removeUserLikeFromFilm(Integer userId, Integer filmId);
+
+    /**
+     * Добавляет пачку лайков, уже существующие лайки пропускаются
+     *
+     * @return лайки, которые действительно добавились
+     */
+    List<Like> addUserLikesToFilms(List<Like> likes);
+
+    /**
+     * Удаляет пачку лайков, отсутствующие лайки пропускаются
+     *
+     * @return лайки, которые действительно удалились
+     */
+    List<Like> removeUserLikesFromFilms(List<Like> likes);
 
     List<Film> getFilmsByLikes(Integer from, Integer limit);
 
+    /**
+     * Страница фильмов по убыванию лайков (при равенстве по возрастанию ИД), начиная после курсора
+     *
+     * @param after - количество лайков и ИД последнего прочитанного фильма, null для первой страницы
+     * @param limit - размер страницы
+     */
+    Page<Film> getFilmsByLikesPage(PageCursor after, int limit);
+
+    /**
+     * @return количество лайков по ИД фильма, включая фильмы без лайков
+     */
+    Map<Integer, Integer> getLikesCountByFilms();
+
+    /**
+     * Фильмы по списку ИД в том же порядке, отсутствующие пропускаются
+     */
+    List<Film> getFilmsByIds(List<Integer> ids);
+
+    /**
+     * Проходит по всем лайкам, не загружая их в память целиком
+     *
+     * @param action - получает ИД пользователя и ИД фильма
+     */
+    void forEachLike(BiConsumer<Integer, Integer> action);
+
     List<Genre> getAllGenres();
 
     Optional<Genre> getGenreById(Integer id);
@@ -10,4 +10,9 @@ public interface FriendsStorage {
     void removeAllFriendFromUser(Integer userId);
 
     List<Integer> getAllFriendIdsByUserId(Integer userId);
+
+    /**
+     * @return ИД общих друзей двух пользователей по возрастанию
+     */
+    List<Integer> getCommonFriendIds(Integer userId, Integer otherId);
 }
@@ -1,42 +1,268 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.HasId;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * Хранилище в памяти для одновременных запросов. Объекты разложены по STRIPES частям по ИД,
+ * у каждой части своя блокировка: запросы к разным частям не ждут друг друга.
+ * Внутри части объекты упорядочены по ИД, поэтому страница после курсора собирается слиянием частей
+ * с позиции курсора, а не сортировкой всех объектов.
+ * findAll и findPage блокируют на чтение все части сразу и возвращают согласованный снимок.
+ * Если наследник задает записи журнала (putRecord, deleteRecord), изменение ставится в журнал под той же блокировкой,
+ * а метод возвращается, когда запись журнала оказалась на диске
+ */
 public class InMemoryAbstractStorage<T extends HasId> implements AbstractStorage<T> {
+    // ИД выдаются подряд, поэтому остаток от деления равномерно раскладывает объекты по частям
+    private static final int STRIPES = 16;
 
-    private final HashMap<Integer, T> objectStore = new HashMap<>();
-    private int currentNextId = 1;
+    private final List<Stripe<T>> stripes = new ArrayList<>(STRIPES);
+    private final AtomicInteger currentNextId = new AtomicInteger(1);
+    private final InMemoryJournal journal;
+
+    public InMemoryAbstractStorage() {
+        this(InMemoryJournal.disabled());
+    }
+
+    protected InMemoryAbstractStorage(InMemoryJournal journal) {
+        this.journal = journal;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.add(new Stripe<>());
+        }
+    }
+
+    private static class Stripe<T> {
+        private final NavigableMap<Integer, T> objectStore = new TreeMap<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    }
+
+    private Stripe<T> stripeFor(Integer id) {
+        return stripes.get(Math.floorMod(id, STRIPES));
+    }
 
     @Override
     public T create(T newObject) {
-        newObject.setId(currentNextId);
-        objectStore.put(newObject.getId(), newObject);
-        currentNextId++;
+        newObject.setId(currentNextId.getAndIncrement());
+        put(newObject);
         return newObject;
     }
 
     @Override
     public T update(T updatedObject) {
-        objectStore.put(updatedObject.getId(), updatedObject);
+        put(updatedObject);
         return updatedObject;
     }
 
+    /**
+     * Кладет объект, восстановленный из снимка или журнала, без записи в журнал
+     */
+    public void restore(T object) {
+        currentNextId.accumulateAndGet(object.getId() + 1, Math::max);
+        put(object, null);
+    }
+
+    /**
+     * @return ИД, который получит следующий созданный объект
+     */
+    public int getNextId() {
+        return currentNextId.get();
+    }
+
+    /**
+     * Сдвигает счетчик ИД по снимку: ИД объектов, удаленных до снимка, не выдаются повторно
+     */
+    public void restoreNextId(int nextId) {
+        currentNextId.accumulateAndGet(nextId, Math::max);
+    }
+
+    /**
+     * @return запись журнала о создании или изменении объекта, null если хранилище не ведет журнал
+     */
+    protected byte[] putRecord(T object) {
+        return null;
+    }
+
+    /**
+     * @return запись журнала об удалении объекта, null если хранилище не ведет журнал
+     */
+    protected byte[] deleteRecord(Integer id) {
+        return null;
+    }
+
+    private void put(T object) {
+        put(object, putRecord(object));
+    }
+
+    private void put(T object, byte[] record) {
+        Stripe<T> stripe = stripeFor(object.getId());
+        Lock lock = stripe.lock.writeLock();
+        long sequence = 0;
+        lock.lock();
+        try {
+            stripe.objectStore.put(object.getId(), object);
+            if (record != null) {
+                sequence = journal.append(record);
+            }
+        } finally {
+            lock.unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
     @Override
     public Optional<T> getById(Integer id) {
-        return Optional.ofNullable(objectStore.get(id));
+        // У null нет части, а объекта с таким ИД нет
+        if (id == null) {
+            return Optional.empty();
+        }
+        Stripe<T> stripe = stripeFor(id);
+        Lock lock = stripe.lock.readLock();
+        lock.lock();
+        try {
+            return Optional.ofNullable(stripe.objectStore.get(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean exists(Integer id) {
+        if (id == null) {
+            return false;
+        }
+        Stripe<T> stripe = stripeFor(id);
+        Lock lock = stripe.lock.readLock();
+        lock.lock();
+        try {
+            return stripe.objectStore.containsKey(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsAll(Collection<Integer> ids) {
+        return ids.stream().allMatch(this::exists);
     }
 
     @Override
     public void delete(Integer id) {
-        objectStore.remove(id);
+        if (id == null) {
+            return;
+        }
+        remove(id, deleteRecord(id));
+    }
+
+    /**
+     * Удаляет объект по записи журнала: без записи в журнал и без связанных данных, у них свои записи
+     */
+    public void restoreDeletion(Integer id) {
+        remove(id, null);
     }
 
+    private void remove(Integer id, byte[] record) {
+        Stripe<T> stripe = stripeFor(id);
+        Lock lock = stripe.lock.writeLock();
+        long sequence = 0;
+        lock.lock();
+        try {
+            stripe.objectStore.remove(id);
+            if (record != null) {
+                sequence = journal.append(record);
+            }
+        } finally {
+            lock.unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    /**
+     * @return снимок всех объектов по возрастанию ИД
+     */
     @Override
     public List<T> findAll() {
-        return List.copyOf(objectStore.values());
+        return readAllStripes(() -> {
+            List<T> result = new ArrayList<>();
+            stripes.forEach(stripe -> result.addAll(stripe.objectStore.values()));
+            // Части уже упорядочены, сортировка только сливает STRIPES готовых участков
+            result.sort(Comparator.comparing(HasId::getId));
+            return result;
+        });
+    }
+
+    @Override
+    public void forEachOrdered(Consumer<? super T> action) {
+        findAll().forEach(action);
+    }
+
+    @Override
+    public Page<T> findPage(PageCursor after, int limit) {
+        int afterId = after == null ? Integer.MIN_VALUE : after.getId();
+        List<T> items = readAllStripes(() -> {
+            // В каждой части поиск позиции после курсора, дальше на каждом шаге берется наименьший ИД из частей
+            List<Iterator<T>> tails = new ArrayList<>(STRIPES);
+            List<T> heads = new ArrayList<>(STRIPES);
+            for (Stripe<T> stripe : stripes) {
+                Iterator<T> tail = stripe.objectStore.tailMap(afterId, false).values().iterator();
+                tails.add(tail);
+                heads.add(tail.hasNext() ? tail.next() : null);
+            }
+            List<T> result = new ArrayList<>(limit + 1);
+            while (result.size() <= limit) {
+                int min = -1;
+                for (int i = 0; i < STRIPES; i++) {
+                    T head = heads.get(i);
+                    if (head != null && (min < 0 || head.getId() < heads.get(min).getId())) {
+                        min = i;
+                    }
+                }
+                if (min < 0) {
+                    break;
+                }
+                result.add(heads.get(min));
+                heads.set(min, tails.get(min).hasNext() ? tails.get(min).next() : null);
+            }
+            return result;
+        });
+        if (items.size() <= limit) {
+            return Page.<T>builder().items(items).build();
+        }
+        List<T> pageItems = items.subList(0, limit);
+        PageCursor next = PageCursor.builder().id(pageItems.get(limit - 1).getId()).build();
+        return Page.<T>builder().items(pageItems).nextCursor(next.encode()).build();
+    }
+
+    /**
+     * Выполняет чтение под блокировкой на чтение всех частей. Части блокируются всегда в одном порядке,
+     * поэтому одновременные чтения не могут заблокировать друг друга
+     */
+    private <R> R readAllStripes(Supplier<R> read) {
+        int locked = 0;
+        try {
+            for (Stripe<T> stripe : stripes) {
+                stripe.lock.readLock().lock();
+                locked++;
+            }
+            return read.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes.get(i).lock.readLock().unlock();
+            }
+        }
     }
 }
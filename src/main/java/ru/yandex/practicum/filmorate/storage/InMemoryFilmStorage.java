@@ -2,24 +2,86 @@ package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.util.comparator.Comparators;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Component
 public class InMemoryFilmStorage extends InMemoryAbstractStorage<Film> implements FilmStorage {
     private final LikeStorage likeStorage;
+    // Справочники жанров и рейтингов, null если хранилище создано без Spring
+    private final ReferenceDataCache referenceData;
 
-    @Autowired
     public InMemoryFilmStorage(LikeStorage likeStorage) {
+        this(likeStorage, InMemoryJournal.disabled(), null);
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(LikeStorage likeStorage, InMemoryJournal journal, ReferenceDataCache referenceData) {
+        super(journal);
         this.likeStorage = likeStorage;
+        this.referenceData = referenceData;
+    }
+
+    @Override
+    public void restore(Film film) {
+        super.restore(film);
+        likeStorage.addFilm(film.getId());
+    }
+
+    @Override
+    protected byte[] putRecord(Film film) {
+        return JournalRecord.filmPut(film);
+    }
+
+    @Override
+    protected byte[] deleteRecord(Integer id) {
+        return JournalRecord.id(JournalRecord.FILM_DELETE, id);
+    }
+
+    @Override
+    public Film create(Film newObject) {
+        Film film = super.create(toStoredFilm(newObject));
+        likeStorage.addFilm(film.getId());
+        return film;
+    }
+
+    @Override
+    public Film update(Film updatedObject) {
+        return super.update(toStoredFilm(updatedObject));
+    }
+
+    /**
+     * Фильм в том виде, в котором его хранит FilmDbStorage: названия рейтинга и жанров из справочников,
+     * жанры без повторов и по возрастанию ИД. Так фильм и пишется в журнал
+     */
+    private Film toStoredFilm(Film film) {
+        Mpa mpa = film.getMpa();
+        if (referenceData != null && mpa != null && mpa.getId() != null) {
+            mpa = referenceData.resolveMpa(mpa.getId());
+        }
+        Map<Integer, Genre> genresById = new TreeMap<>();
+        if (film.getGenres() != null) {
+            film.getGenres().stream()
+                    .filter(genre -> genre.getId() != null)
+                    .forEach(genre -> genresById.putIfAbsent(genre.getId(),
+                            referenceData != null ? referenceData.resolveGenre(genre.getId()) : genre));
+        }
+        return film.toBuilder()
+                .mpa(mpa)
+                .genres(new ArrayList<>(genresById.values()))
+                .build();
     }
 
     @Override
@@ -29,41 +91,99 @@ public class InMemoryFilmStorage extends InMemoryAbstractStorage<Film> implement
     }
 
     @Override
-    public void addUserLikeToFilm(Integer userId, Integer filmId) {
-        likeStorage.addUserLikeToFilm(userId, filmId);
+    public boolean addUserLikeToFilm(Integer userId, Integer filmId) {
+        return likeStorage.addUserLikeToFilm(userId, filmId);
     }
 
     @Override
-    public void removeUserLikeFromFilm(Integer userId, Integer filmId) {
-        likeStorage.removeUserLikeFromFilm(userId, filmId);
+    public boolean removeUserLikeFromFilm(Integer userId, Integer filmId) {
+        return likeStorage.removeUserLikeFromFilm(userId, filmId);
+    }
+
+    @Override
+    public List<Like> addUserLikesToFilms(List<Like> likes) {
+        return likes.stream()
+                .filter(like -> likeStorage.addUserLikeToFilm(like.getUserId(), like.getFilmId()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Like> removeUserLikesFromFilms(List<Like> likes) {
+        return likes.stream()
+                .filter(like -> likeStorage.removeUserLikeFromFilm(like.getUserId(), like.getFilmId()))
+                .collect(Collectors.toList());
     }
 
     @Override
     public List<Film> getFilmsByLikes(Integer from, Integer limit) {
-        Map<Integer, List<Integer>> filmsByLike = likeStorage.getCountsOfLikesByFilms();
+        return toFilms(likeStorage.getMostLikedFilmIds(from, limit));
+    }
+
+    @Override
+    public Page<Film> getFilmsByLikesPage(PageCursor after, int limit) {
+        List<Integer> ids = after == null
+                ? likeStorage.getMostLikedFilmIds(0, limit + 1)
+                : likeStorage.getMostLikedFilmIdsAfter(after.getLikes(), after.getId(), limit + 1);
+        List<Film> films = toFilms(ids);
+        if (films.size() <= limit) {
+            return Page.<Film>builder().items(films).build();
+        }
+        List<Film> pageFilms = films.subList(0, limit);
+        Film last = pageFilms.get(limit - 1);
+        PageCursor next = PageCursor.builder().likes(likeStorage.getLikesCount(last.getId())).id(last.getId()).build();
+        return Page.<Film>builder().items(pageFilms).nextCursor(next.encode()).build();
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        return toFilms(ids);
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> action) {
+        likeStorage.copyFilmIdsByUser().forEach((userId, filmIds) -> {
+            for (int filmId : filmIds) {
+                action.accept(userId, filmId);
+            }
+        });
+    }
+
+    // Фильм могли удалить между чтением индекса и чтением фильма
+    private List<Film> toFilms(List<Integer> ids) {
+        return ids.stream().map(super::getById).flatMap(Optional::stream).collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCountByFilms() {
+        Map<Integer, Integer> likesByFilm = likeStorage.getLikesCountByFilms();
         return super.findAll().stream()
-                .sorted((a, b) -> Comparators.comparable().compare(filmsByLike.getOrDefault(b.getId(),
-                        new ArrayList<>()).size(), filmsByLike.getOrDefault(a.getId(), new ArrayList<>()).size()))
-                .skip(from).limit(limit).collect(Collectors.toList());
+                .collect(Collectors.toMap(Film::getId, film -> likesByFilm.getOrDefault(film.getId(), 0)));
     }
 
     @Override
     public List<Genre> getAllGenres() {
-        throw new UnsupportedOperationException();
+        return requireReferenceData().getAllGenres();
     }
 
     @Override
     public Optional<Genre> getGenreById(Integer id) {
-        throw new UnsupportedOperationException();
+        return requireReferenceData().getGenreById(id);
     }
 
     @Override
     public List<Mpa> getAllMpa() {
-        throw new UnsupportedOperationException();
+        return requireReferenceData().getAllMpa();
     }
 
     @Override
     public Optional<Mpa> getMpaById(Integer id) {
-        throw new UnsupportedOperationException();
+        return requireReferenceData().getMpaById(id);
+    }
+
+    private ReferenceDataCache requireReferenceData() {
+        if (referenceData == null) {
+            throw new UnsupportedOperationException();
+        }
+        return referenceData;
     }
 }
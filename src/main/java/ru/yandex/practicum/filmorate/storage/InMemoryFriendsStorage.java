@@ -1,35 +1,154 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntSetIntersection;
+import ru.yandex.practicum.filmorate.util.IntSortedSet;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Граф дружбы списками смежности: у каждого пользователя отсортированный массив ИД друзей.
+ * Дружба взаимная, поэтому хранится у обоих пользователей: поиск друзей и удаление пользователя
+ * проходят только по его друзьям, а не по всем парам.
+ * Общие друзья считаются слиянием двух отсортированных массивов или галопом, если один намного больше другого,
+ * так что пользователь с миллионом друзей и пользователь с десятком сравниваются за десятки двоичных поисков
+ */
 @Component
 public class InMemoryFriendsStorage implements FriendsStorage {
+    private final Map<Integer, IntSortedSet> friendIdsByUser = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final InMemoryJournal journal;
 
-    private final Set<AbstractMap.SimpleEntry<Integer, Integer>> friendsStore = new HashSet<>();
+    public InMemoryFriendsStorage() {
+        this(InMemoryJournal.disabled());
+    }
+
+    @Autowired
+    public InMemoryFriendsStorage(InMemoryJournal journal) {
+        this.journal = journal;
+    }
 
     @Override
     public void addFriendship(Integer userId, Integer friendId) {
-        friendsStore.add(new AbstractMap.SimpleEntry<>(userId, friendId));
-        friendsStore.add(new AbstractMap.SimpleEntry<>(friendId, userId));
+        Lock writeLock = lock.writeLock();
+        long sequence;
+        writeLock.lock();
+        try {
+            addTo(userId, friendId);
+            addTo(friendId, userId);
+            sequence = journal.append(JournalRecord.pair(JournalRecord.FRIENDSHIP_ADD, userId, friendId));
+        } finally {
+            writeLock.unlock();
+        }
+        journal.awaitDurable(sequence);
     }
 
     @Override
     public void removeFriendship(Integer userId, Integer friendId) {
-        friendsStore.remove(new AbstractMap.SimpleEntry<>(userId, friendId));
-        friendsStore.remove(new AbstractMap.SimpleEntry<>(friendId, userId));
+        Lock writeLock = lock.writeLock();
+        long sequence;
+        writeLock.lock();
+        try {
+            removeFrom(userId, friendId);
+            removeFrom(friendId, userId);
+            sequence = journal.append(JournalRecord.pair(JournalRecord.FRIENDSHIP_REMOVE, userId, friendId));
+        } finally {
+            writeLock.unlock();
+        }
+        journal.awaitDurable(sequence);
     }
 
     @Override
     public void removeAllFriendFromUser(Integer userId) {
-        friendsStore.removeIf(pair -> pair.getKey().equals(userId) || pair.getValue().equals(userId));
+        Lock writeLock = lock.writeLock();
+        long sequence;
+        writeLock.lock();
+        try {
+            IntSortedSet friendIds = friendIdsByUser.remove(userId);
+            if (friendIds != null) {
+                friendIds.forEach(friendId -> removeFrom(friendId, userId));
+            }
+            sequence = journal.append(JournalRecord.id(JournalRecord.USER_FRIENDSHIPS_REMOVE, userId));
+        } finally {
+            writeLock.unlock();
+        }
+        journal.awaitDurable(sequence);
     }
 
     @Override
     public List<Integer> getAllFriendIdsByUserId(Integer userId) {
-        return friendsStore.stream().filter(pair -> pair.getKey().equals(userId))
-                .map(AbstractMap.SimpleEntry::getValue).collect(Collectors.toList());
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            IntSortedSet friendIds = friendIdsByUser.get(userId);
+            if (friendIds == null) {
+                return new ArrayList<>();
+            }
+            List<Integer> result = new ArrayList<>(friendIds.size());
+            friendIds.forEach(result::add);
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> getCommonFriendIds(Integer userId, Integer otherId) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            IntSortedSet userFriends = friendIdsByUser.get(userId);
+            IntSortedSet otherFriends = friendIdsByUser.get(otherId);
+            if (userFriends == null || otherFriends == null) {
+                return new ArrayList<>();
+            }
+            int[] common = IntSetIntersection.intersect(userFriends, otherFriends);
+            List<Integer> result = new ArrayList<>(common.length);
+            Arrays.stream(common).forEach(result::add);
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Копия друзей по пользователям для снимка, каждая дружба один раз: у пользователя с меньшим ИД
+     */
+    public Map<Integer, int[]> copyFriendIdsByUser() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Map<Integer, int[]> result = new HashMap<>(friendIdsByUser.size() * 2);
+            friendIdsByUser.forEach((userId, friendIds) -> {
+                int[] sorted = friendIds.toSortedArray();
+                int from = Arrays.binarySearch(sorted, userId);
+                int[] greater = Arrays.copyOfRange(sorted, from >= 0 ? from : -from - 1, sorted.length);
+                if (greater.length > 0) {
+                    result.put(userId, greater);
+                }
+            });
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void addTo(Integer userId, int friendId) {
+        friendIdsByUser.computeIfAbsent(userId, id -> new IntSortedSet()).add(friendId);
+    }
+
+    // Пустые множества удаляются, чтобы пользователи без друзей не занимали память
+    private void removeFrom(Integer userId, int friendId) {
+        IntSortedSet friendIds = friendIdsByUser.get(userId);
+        if (friendIds != null && friendIds.remove(friendId) && friendIds.isEmpty()) {
+            friendIdsByUser.remove(userId);
+        }
     }
 }
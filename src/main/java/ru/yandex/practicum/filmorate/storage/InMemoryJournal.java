@@ -0,0 +1,419 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Журнал изменений хранилищ в памяти. Записи дописываются в конец файла журнала через FileChannel
+ * отдельным потоком: все записи, пришедшие, пока шел предыдущий force, пишутся и сбрасываются на диск
+ * одним write и одним force (групповая фиксация). Вызывающий поток ждет, пока его запись окажется на диске.
+ * <p>
+ * Журнал разбит на части journal-N.log. Снимок snapshot-N.bin содержит состояние хранилищ не раньше начала части N,
+ * поэтому при восстановлении читается последний целый снимок и затем части журнала начиная с N.
+ * Запись в файле: длина, CRC32 и байты записи; оборванная при падении последняя запись отбрасывается
+ */
+@Component
+@Slf4j
+public class InMemoryJournal {
+    private static final Pattern JOURNAL_FILE = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+    private static final long SNAPSHOT_MAGIC = 0x464C4D534E415031L;
+    // Сколько записей писать одним write при групповой фиксации
+    private static final int MAX_GROUP_SIZE = 4096;
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Object durableMonitor = new Object();
+    private long lastSequence;
+    private long durableSequence;
+    private volatile boolean open;
+    private volatile IOException failure;
+    private FileChannel channel;
+    private long segment;
+    private Thread writer;
+
+    @Autowired
+    public InMemoryJournal(@Value("${filmorate.inmemory.journal.enabled:false}") boolean enabled,
+                           @Value("${filmorate.inmemory.journal.dir:./db/journal}") String directory) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Журнал, который ничего не пишет, для хранилищ, созданных без Spring
+     */
+    public static InMemoryJournal disabled() {
+        return new InMemoryJournal(false, ".");
+    }
+
+    private static class Entry {
+        private final long sequence;
+        private final byte[] record;
+        // Запись-маркер: перейти на следующую часть журнала
+        private final boolean rotate;
+
+        private Entry(long sequence, byte[] record, boolean rotate) {
+            this.sequence = sequence;
+            this.record = record;
+            this.rotate = rotate;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Начинает запись в новую часть журнала. До вызова append ничего не пишет, так восстановление
+     * через обычные методы хранилищ не попадает в журнал
+     */
+    public synchronized void open(long segment) throws IOException {
+        Files.createDirectories(directory);
+        this.segment = segment;
+        channel = openSegment(segment);
+        writer = new Thread(this::writeLoop, "inmemory-journal");
+        writer.setDaemon(true);
+        open = true;
+        writer.start();
+        log.info("Журнал хранилищ в памяти: {}, часть {}", directory.toAbsolutePath(), segment);
+    }
+
+    /**
+     * Ставит запись в очередь на запись. Вызывается под блокировкой хранилища, чтобы порядок записей в журнале
+     * совпадал с порядком изменений в памяти
+     *
+     * @return номер записи для awaitDurable, 0 если журнал не ведется
+     */
+    public synchronized long append(byte[] record) {
+        if (!open) {
+            return 0;
+        }
+        lastSequence++;
+        queue.add(new Entry(lastSequence, record, false));
+        return lastSequence;
+    }
+
+    /**
+     * Ждет, пока запись с номером sequence и все предыдущие окажутся на диске
+     */
+    public void awaitDurable(long sequence) {
+        if (sequence == 0) {
+            return;
+        }
+        synchronized (durableMonitor) {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Журнал хранилищ в памяти недоступен", failure);
+                }
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Прервано ожидание записи журнала", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Переходит на следующую часть журнала
+     *
+     * @return номер новой части: записи, поставленные в очередь после вызова, пишутся в нее
+     */
+    public long rotate() {
+        long sequence;
+        synchronized (this) {
+            if (!open) {
+                throw new IllegalStateException("Журнал хранилищ в памяти не открыт");
+            }
+            lastSequence++;
+            sequence = lastSequence;
+            queue.add(new Entry(sequence, null, true));
+        }
+        awaitDurable(sequence);
+        synchronized (this) {
+            return segment;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException, IOException {
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        channel.close();
+    }
+
+    private void writeLoop() {
+        List<Entry> group = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        CRC32 crc = new CRC32();
+        while (open || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP_SIZE);
+                for (Entry entry : group) {
+                    if (entry.rotate) {
+                        flush(buffer);
+                        switchSegment();
+                        continue;
+                    }
+                    int frameSize = FRAME_HEADER_SIZE + entry.record.length;
+                    if (buffer.remaining() < frameSize) {
+                        flush(buffer);
+                        if (buffer.capacity() < frameSize) {
+                            buffer = ByteBuffer.allocate(frameSize);
+                        }
+                    }
+                    crc.reset();
+                    crc.update(entry.record);
+                    buffer.putInt(entry.record.length).putInt((int) crc.getValue()).put(entry.record);
+                }
+                flush(buffer);
+                channel.force(false);
+                synchronized (durableMonitor) {
+                    durableSequence = group.get(group.size() - 1).sequence;
+                    durableMonitor.notifyAll();
+                }
+            } catch (IOException e) {
+                log.error("Ошибка записи журнала хранилищ в памяти", e);
+                synchronized (durableMonitor) {
+                    failure = e;
+                    durableMonitor.notifyAll();
+                }
+                return;
+            } catch (InterruptedException e) {
+                // Без потока записи запросы в awaitDurable не дождутся записи, поэтому будятся с ошибкой
+                log.error("Поток записи журнала хранилищ в памяти прерван");
+                synchronized (durableMonitor) {
+                    failure = new InterruptedIOException("Поток записи журнала прерван");
+                    durableMonitor.notifyAll();
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void switchSegment() throws IOException {
+        channel.force(false);
+        channel.close();
+        FileChannel next = openSegment(segment + 1);
+        synchronized (this) {
+            segment++;
+            channel = next;
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(directory.resolve(String.format("journal-%020d.log", number)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Пишет снимок для части журнала segment: во временный файл, на диск, затем переименованием,
+     * чтобы недописанный снимок никогда не считался целым. После этого удаляются старые снимки и части журнала
+     */
+    public void writeSnapshot(long fromSegment, SnapshotWriter contents) throws IOException {
+        Path temporary = directory.resolve("snapshot.tmp");
+        try (OutputStream file = Files.newOutputStream(temporary)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeLong(SNAPSHOT_MAGIC);
+            out.writeLong(fromSegment);
+            contents.write(record -> {
+                out.writeInt(record.length);
+                out.write(record);
+            });
+            out.writeInt(-1);
+            out.flush();
+            // Контрольная сумма всего снимка в конце файла
+            new DataOutputStream(file).writeLong(checked.getChecksum().getValue());
+        }
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temporary, directory.resolve(String.format("snapshot-%020d.bin", fromSegment)),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (Path path : listFiles()) {
+            Optional<Long> snapshotNumber = number(path, SNAPSHOT_FILE);
+            Optional<Long> journalNumber = number(path, JOURNAL_FILE);
+            if (snapshotNumber.filter(number -> number < fromSegment).isPresent()
+                    || journalNumber.filter(number -> number < fromSegment).isPresent()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public interface SnapshotWriter {
+        void write(RecordSink sink) throws IOException;
+    }
+
+    public interface RecordSink {
+        void accept(byte[] record) throws IOException;
+    }
+
+    /**
+     * Читает последний целый снимок и все части журнала после него
+     *
+     * @return номер части журнала, с которой продолжать запись
+     */
+    public long recover(RecordSink sink) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = listFiles();
+        List<Path> snapshots = files.stream().filter(path -> number(path, SNAPSHOT_FILE).isPresent())
+                .sorted().collect(Collectors.toList());
+        long fromSegment = 0;
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            if (isCompleteSnapshot(snapshot)) {
+                fromSegment = readSnapshot(snapshot, sink);
+                break;
+            }
+            log.warn("Снимок {} поврежден и пропущен", snapshot);
+        }
+        long nextSegment = fromSegment;
+        List<Path> journals = files.stream().filter(path -> number(path, JOURNAL_FILE).isPresent())
+                .sorted().collect(Collectors.toList());
+        for (Path journal : journals) {
+            long number = number(journal, JOURNAL_FILE).orElseThrow();
+            if (number >= fromSegment) {
+                readJournal(journal, sink);
+            }
+            nextSegment = Math.max(nextSegment, number + 1);
+        }
+        return nextSegment;
+    }
+
+    private boolean isCompleteSnapshot(Path snapshot) throws IOException {
+        long size = Files.size(snapshot);
+        if (size < Long.BYTES * 3) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16)) {
+            byte[] chunk = new byte[1 << 16];
+            long left = size - Long.BYTES;
+            while (left > 0) {
+                int read = in.read(chunk, 0, (int) Math.min(chunk.length, left));
+                if (read < 0) {
+                    return false;
+                }
+                crc.update(chunk, 0, read);
+                left -= read;
+            }
+            return new DataInputStream(in).readLong() == crc.getValue();
+        }
+    }
+
+    private long readSnapshot(Path snapshot, RecordSink sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            if (in.readLong() != SNAPSHOT_MAGIC) {
+                throw new IOException("Файл не является снимком: " + snapshot);
+            }
+            long fromSegment = in.readLong();
+            for (int length = in.readInt(); length >= 0; length = in.readInt()) {
+                byte[] record = new byte[length];
+                in.readFully(record);
+                sink.accept(record);
+            }
+            log.info("Прочитан снимок {}", snapshot);
+            return fromSegment;
+        }
+    }
+
+    private void readJournal(Path journal, RecordSink sink) throws IOException {
+        CRC32 crc = new CRC32();
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal), 1 << 16))) {
+            while (true) {
+                byte[] record;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0) {
+                        break;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                sink.accept(record);
+                records++;
+            }
+        }
+        log.info("Прочитано записей журнала {}: {}", journal, records);
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static Optional<Long> number(Path path, Pattern pattern) {
+        Matcher matcher = pattern.matcher(path.getFileName().toString());
+        return matcher.matches() ? Optional.of(Long.parseLong(matcher.group(1))) : Optional.empty();
+    }
+}
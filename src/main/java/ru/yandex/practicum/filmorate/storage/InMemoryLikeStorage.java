@@ -1,41 +1,245 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.util.IntHashSet;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Лайки хранятся дважды: ИД пользователей по фильму и ИД фильмов по пользователю, оба в IntHashSet.
+ * Лайк занимает от 13 до 27 байт в двух множествах (в зависимости от заполнения таблиц)
+ * вместо примерно 95 байт на пару Integer с объектом записи и узлом HashSet.
+ * Количество лайков фильма - размер его множества, удаление пользователя проходит только по его лайкам.
+ * Индекс популярности обновляется при каждом лайке, поэтому первые N популярных фильмов читаются за O(N) без сортировки.
+ * Изменения пишутся в журнал под той же блокировкой, что и в память
+ */
 @Component
 public class InMemoryLikeStorage implements LikeStorage {
+    private final Map<Integer, IntHashSet> userIdsByFilm = new HashMap<>();
+    private final Map<Integer, IntHashSet> filmIdsByUser = new HashMap<>();
+    // Ключ - упакованные в long (Integer.MAX_VALUE - лайки, ИД фильма): обход по возрастанию ключа дает фильмы
+    // по убыванию лайков, а при равенстве по возрастанию ИД
+    private final NavigableSet<Long> popularity = new TreeSet<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final InMemoryJournal journal;
 
-    // Здесь за ключ будет ид фильма, а за значение будет ид пользователя
-    private final Set<AbstractMap.SimpleEntry<Integer, Integer>> likeStore = new HashSet<>();
+    public InMemoryLikeStorage() {
+        this(InMemoryJournal.disabled());
+    }
+
+    @Autowired
+    public InMemoryLikeStorage(InMemoryJournal journal) {
+        this.journal = journal;
+    }
+
+    @Override
+    public boolean addUserLikeToFilm(Integer userId, Integer filmId) {
+        Lock writeLock = lock.writeLock();
+        long sequence;
+        writeLock.lock();
+        try {
+            IntHashSet userIds = userIdsByFilm.computeIfAbsent(filmId, id -> new IntHashSet());
+            if (!userIds.add(userId)) {
+                return false;
+            }
+            filmIdsByUser.computeIfAbsent(userId, id -> new IntHashSet()).add(filmId);
+            reindex(filmId, userIds.size() - 1, userIds.size());
+            sequence = journal.append(JournalRecord.pair(JournalRecord.LIKE_ADD, userId, filmId));
+        } finally {
+            writeLock.unlock();
+        }
+        journal.awaitDurable(sequence);
+        return true;
+    }
 
     @Override
-    public void addUserLikeToFilm(Integer userId, Integer filmId) {
-        likeStore.add(new AbstractMap.SimpleEntry<>(filmId, userId));
+    public boolean removeUserLikeFromFilm(Integer userId, Integer filmId) {
+        Lock writeLock = lock.writeLock();
+        long sequence;
+        writeLock.lock();
+        try {
+            if (!removeFrom(userIdsByFilm, filmId, userId)) {
+                return false;
+            }
+            removeFrom(filmIdsByUser, userId, filmId);
+            int likes = countOf(filmId);
+            reindex(filmId, likes + 1, likes);
+            sequence = journal.append(JournalRecord.pair(JournalRecord.LIKE_REMOVE, userId, filmId));
+        } finally {
+            writeLock.unlock();
+        }
+        journal.awaitDurable(sequence);
+        return true;
     }
 
     @Override
-    public void removeUserLikeFromFilm(Integer userId, Integer filmId) {
-        likeStore.remove(new AbstractMap.SimpleEntry<>(filmId, userId));
+    public void addFilm(Integer filmId) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            popularity.add(popularityKey(countOf(filmId), filmId));
+        } finally {
+            writeLock.unlock();
+        }
     }
 
     @Override
     public void removeAllUserLikes(Integer userId) {
-        likeStore.removeIf(pair -> pair.getValue().equals(userId));
+        Lock writeLock = lock.writeLock();
+        long sequence;
+        writeLock.lock();
+        try {
+            IntHashSet filmIds = filmIdsByUser.remove(userId);
+            if (filmIds != null) {
+                filmIds.forEach(filmId -> {
+                    removeFrom(userIdsByFilm, filmId, userId);
+                    int likes = countOf(filmId);
+                    reindex(filmId, likes + 1, likes);
+                });
+            }
+            sequence = journal.append(JournalRecord.id(JournalRecord.USER_LIKES_REMOVE, userId));
+        } finally {
+            writeLock.unlock();
+        }
+        journal.awaitDurable(sequence);
     }
 
     @Override
     public void removeAllFilmLikes(Integer filmId) {
-        likeStore.removeIf(pair -> pair.getKey().equals(filmId));
+        Lock writeLock = lock.writeLock();
+        long sequence;
+        writeLock.lock();
+        try {
+            IntHashSet userIds = userIdsByFilm.remove(filmId);
+            popularity.remove(popularityKey(userIds == null ? 0 : userIds.size(), filmId));
+            if (userIds != null) {
+                userIds.forEach(userId -> removeFrom(filmIdsByUser, userId, filmId));
+            }
+            sequence = journal.append(JournalRecord.id(JournalRecord.FILM_LIKES_REMOVE, filmId));
+        } finally {
+            writeLock.unlock();
+        }
+        journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public int getLikesCount(Integer filmId) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return countOf(filmId);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCountByFilms() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Map<Integer, Integer> result = new HashMap<>();
+            userIdsByFilm.forEach((filmId, userIds) -> result.put(filmId, userIds.size()));
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Integer> getMostLikedFilmIds(int from, int limit) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Iterator<Long> keys = popularity.iterator();
+            for (int i = 0; i < from && keys.hasNext(); i++) {
+                keys.next();
+            }
+            return take(keys, limit);
+        } finally {
+            readLock.unlock();
+        }
     }
 
     @Override
-    public Map<Integer, List<Integer>> getCountsOfLikesByFilms() {
-        return likeStore.stream()
-                .collect(Collectors.groupingBy(AbstractMap.SimpleEntry::getKey,
-                        Collectors.mapping(AbstractMap.SimpleEntry::getValue, Collectors.toList())));
+    public List<Integer> getMostLikedFilmIdsAfter(int likes, int filmId, int limit) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return take(popularity.tailSet(popularityKey(likes, filmId), false).iterator(), limit);
+        } finally {
+            readLock.unlock();
+        }
     }
 
+    /**
+     * Копия ИД пользователей по фильмам для снимка. Копируется под блокировкой, а пишется на диск уже без нее
+     */
+    public Map<Integer, int[]> copyUserIdsByFilm() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Map<Integer, int[]> result = new HashMap<>(userIdsByFilm.size() * 2);
+            userIdsByFilm.forEach((filmId, userIds) -> result.put(filmId, userIds.toSortedArray()));
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, int[]> copyFilmIdsByUser() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Map<Integer, int[]> result = new HashMap<>(filmIdsByUser.size() * 2);
+            filmIdsByUser.forEach((userId, filmIds) -> result.put(userId, filmIds.toSortedArray()));
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static List<Integer> take(Iterator<Long> keys, int limit) {
+        List<Integer> result = new ArrayList<>(limit);
+        while (result.size() < limit && keys.hasNext()) {
+            result.add((int) keys.next().longValue());
+        }
+        return result;
+    }
+
+    private static long popularityKey(int likes, int filmId) {
+        return ((long) (Integer.MAX_VALUE - likes) << Integer.SIZE) | (filmId & 0xFFFFFFFFL);
+    }
+
+    private void reindex(int filmId, int oldLikes, int newLikes) {
+        popularity.remove(popularityKey(oldLikes, filmId));
+        popularity.add(popularityKey(newLikes, filmId));
+    }
+
+    private int countOf(Integer filmId) {
+        IntHashSet userIds = userIdsByFilm.get(filmId);
+        return userIds == null ? 0 : userIds.size();
+    }
+
+    // Пустые множества удаляются, чтобы удаленные фильмы и пользователи не занимали память
+    private static boolean removeFrom(Map<Integer, IntHashSet> index, Integer key, int value) {
+        IntHashSet values = index.get(key);
+        if (values == null || !values.remove(value)) {
+            return false;
+        }
+        if (values.isEmpty()) {
+            index.remove(key);
+        }
+        return true;
+    }
 }
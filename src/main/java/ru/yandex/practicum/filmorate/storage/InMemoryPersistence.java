@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Восстановление хранилищ в памяти при старте и периодические снимки (если включено свойством
+ * filmorate.inmemory.journal.enabled).
+ * <p>
+ * Снимок не останавливает запросы: сначала журнал переходит на новую часть, затем копируется состояние хранилищ.
+ * Изменения, которые успели попасть и в копию, и в новую часть журнала, при восстановлении применяются повторно,
+ * но записи журнала задают итоговое состояние, поэтому результат тот же
+ */
+@Component
+@Slf4j
+public class InMemoryPersistence implements JournalRecord.Target {
+    private final InMemoryJournal journal;
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final InMemoryLikeStorage likeStorage;
+    private final InMemoryFriendsStorage friendsStorage;
+    private final long snapshotIntervalMs;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public InMemoryPersistence(InMemoryJournal journal,
+                               InMemoryFilmStorage filmStorage,
+                               InMemoryUserStorage userStorage,
+                               InMemoryLikeStorage likeStorage,
+                               InMemoryFriendsStorage friendsStorage,
+                               @Value("${filmorate.inmemory.snapshot-interval-ms:600000}") long snapshotIntervalMs) {
+        this.journal = journal;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.likeStorage = likeStorage;
+        this.friendsStorage = friendsStorage;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        long nextSegment = journal.recover(record -> JournalRecord.replay(record, this));
+        log.info("Хранилища в памяти восстановлены за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        journal.open(nextSegment);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inmemory-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalMs, snapshotIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Пишет снимок всех хранилищ в памяти и удаляет ставшие ненужными части журнала
+     */
+    public void snapshot() throws IOException {
+        long started = System.nanoTime();
+        long fromSegment = journal.rotate();
+        // Копии снимаются под блокировками хранилищ, на диск пишутся уже без них
+        Map<Integer, int[]> likes = likeStorage.copyUserIdsByFilm();
+        Map<Integer, int[]> friendships = friendsStorage.copyFriendIdsByUser();
+        journal.writeSnapshot(fromSegment, sink -> {
+            // Объекты, созданные после чтения счетчиков, сами сдвигают их при восстановлении
+            sink.accept(JournalRecord.pair(JournalRecord.NEXT_IDS, filmStorage.getNextId(), userStorage.getNextId()));
+            for (Film film : filmStorage.findAll()) {
+                sink.accept(JournalRecord.filmPut(film));
+            }
+            for (User user : userStorage.findAll()) {
+                sink.accept(JournalRecord.userPut(user));
+            }
+            for (Map.Entry<Integer, int[]> entry : likes.entrySet()) {
+                sink.accept(JournalRecord.idWithIds(JournalRecord.FILM_LIKES, entry.getKey(), entry.getValue()));
+            }
+            for (Map.Entry<Integer, int[]> entry : friendships.entrySet()) {
+                sink.accept(JournalRecord.idWithIds(JournalRecord.USER_FRIENDS, entry.getKey(), entry.getValue()));
+            }
+        });
+        log.info("Снимок хранилищ в памяти записан за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Ошибка записи снимка хранилищ в памяти", e);
+        }
+    }
+
+    // Восстановление идет до открытия журнала, поэтому методы лайков и дружбы ничего в него не пишут.
+    // Удаление фильма или пользователя не трогает их лайки и дружбы: у тех свои записи журнала
+
+    @Override
+    public void putFilm(Film film) {
+        filmStorage.restore(film);
+    }
+
+    @Override
+    public void deleteFilm(int filmId) {
+        filmStorage.restoreDeletion(filmId);
+    }
+
+    @Override
+    public void putUser(User user) {
+        userStorage.restore(user);
+    }
+
+    @Override
+    public void deleteUser(int userId) {
+        userStorage.restoreDeletion(userId);
+    }
+
+    @Override
+    public void addLike(int userId, int filmId) {
+        likeStorage.addUserLikeToFilm(userId, filmId);
+    }
+
+    @Override
+    public void removeLike(int userId, int filmId) {
+        likeStorage.removeUserLikeFromFilm(userId, filmId);
+    }
+
+    @Override
+    public void removeUserLikes(int userId) {
+        likeStorage.removeAllUserLikes(userId);
+    }
+
+    @Override
+    public void removeFilmLikes(int filmId) {
+        likeStorage.removeAllFilmLikes(filmId);
+    }
+
+    @Override
+    public void addFriendship(int userId, int friendId) {
+        friendsStorage.addFriendship(userId, friendId);
+    }
+
+    @Override
+    public void removeFriendship(int userId, int friendId) {
+        friendsStorage.removeFriendship(userId, friendId);
+    }
+
+    @Override
+    public void removeUserFriendships(int userId) {
+        friendsStorage.removeAllFriendFromUser(userId);
+    }
+
+    @Override
+    public void restoreNextIds(int filmNextId, int userNextId) {
+        filmStorage.restoreNextId(filmNextId);
+        userStorage.restoreNextId(userNextId);
+    }
+}
@@ -14,12 +14,27 @@ public class InMemoryUserStorage extends InMemoryAbstractStorage<User> implement
     private final LikeStorage likeStorage;
     private final FriendsStorage friendsStorage;
 
-    @Autowired
     public InMemoryUserStorage(LikeStorage likeStorage, FriendsStorage friendsStorage) {
+        this(likeStorage, friendsStorage, InMemoryJournal.disabled());
+    }
+
+    @Autowired
+    public InMemoryUserStorage(LikeStorage likeStorage, FriendsStorage friendsStorage, InMemoryJournal journal) {
+        super(journal);
         this.likeStorage = likeStorage;
         this.friendsStorage = friendsStorage;
     }
 
+    @Override
+    protected byte[] putRecord(User user) {
+        return JournalRecord.userPut(user);
+    }
+
+    @Override
+    protected byte[] deleteRecord(Integer id) {
+        return JournalRecord.id(JournalRecord.USER_DELETE, id);
+    }
+
     @Override
     public void delete(Integer id) {
         likeStorage.removeAllUserLikes(id);
@@ -35,11 +50,9 @@ public class InMemoryUserStorage extends InMemoryAbstractStorage<User> implement
 
     @Override
     public List<User> getCommonFriends(Integer userId, Integer otherId) {
-        List<Integer> userFriends = friendsStorage.getAllFriendIdsByUserId(userId);
-        List<Integer> otherFriends = friendsStorage.getAllFriendIdsByUserId(otherId);
-        return userFriends.stream().filter(otherFriends::contains).map(super::getById)
-                .map(Optional::get)
-                .sorted(Comparator.comparing(User::getId)).collect(Collectors.toList());
+        // ИД уже отсортированы
+        return friendsStorage.getCommonFriendIds(userId, otherId).stream()
+                .map(super::getById).map(Optional::get).collect(Collectors.toList());
     }
 
     @Override
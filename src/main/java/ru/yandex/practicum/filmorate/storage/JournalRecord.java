@@ -0,0 +1,271 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Двоичный формат записей журнала и снимков хранилищ в памяти: тип записи одним байтом и поля через DataOutput.
+ * Каждая запись задает итоговое состояние объекта или пары, а не изменение, поэтому повторное применение записи
+ * поверх снимка, в который она уже попала, ничего не меняет
+ */
+final class JournalRecord {
+    static final byte FILM_PUT = 1;
+    static final byte FILM_DELETE = 2;
+    static final byte USER_PUT = 3;
+    static final byte USER_DELETE = 4;
+    static final byte LIKE_ADD = 5;
+    static final byte LIKE_REMOVE = 6;
+    static final byte USER_LIKES_REMOVE = 7;
+    static final byte FILM_LIKES_REMOVE = 8;
+    static final byte FRIENDSHIP_ADD = 9;
+    static final byte FRIENDSHIP_REMOVE = 10;
+    static final byte USER_FRIENDSHIPS_REMOVE = 11;
+    // Только в снимках: все лайки фильма или друзья пользователя одной записью, по 4 байта на ИД
+    static final byte FILM_LIKES = 12;
+    static final byte USER_FRIENDS = 13;
+    // Только в снимках: следующие ИД фильмов и пользователей, чтобы ИД удаленных перед снимком объектов не выдавались снова
+    static final byte NEXT_IDS = 14;
+
+    private JournalRecord() {
+    }
+
+    /**
+     * Получатель записей при восстановлении
+     */
+    interface Target {
+        void putFilm(Film film);
+
+        void deleteFilm(int filmId);
+
+        void putUser(User user);
+
+        void deleteUser(int userId);
+
+        void addLike(int userId, int filmId);
+
+        void removeLike(int userId, int filmId);
+
+        void removeUserLikes(int userId);
+
+        void removeFilmLikes(int filmId);
+
+        void addFriendship(int userId, int friendId);
+
+        void removeFriendship(int userId, int friendId);
+
+        void removeUserFriendships(int userId);
+
+        void restoreNextIds(int filmNextId, int userNextId);
+    }
+
+    private interface Writer {
+        void write(DataOutput out) throws IOException;
+    }
+
+    static byte[] filmPut(Film film) {
+        return encode(FILM_PUT, out -> {
+            out.writeInt(film.getId());
+            writeString(out, film.getName());
+            writeString(out, film.getDescription());
+            writeDate(out, film.getReleaseDate());
+            out.writeLong(film.getDuration());
+            Mpa mpa = film.getMpa();
+            out.writeBoolean(mpa != null);
+            if (mpa != null) {
+                writeInteger(out, mpa.getId());
+                writeString(out, mpa.getName());
+            }
+            List<Genre> genres = film.getGenres();
+            out.writeInt(genres == null ? -1 : genres.size());
+            if (genres != null) {
+                for (Genre genre : genres) {
+                    writeInteger(out, genre.getId());
+                    writeString(out, genre.getName());
+                }
+            }
+        });
+    }
+
+    static byte[] userPut(User user) {
+        return encode(USER_PUT, out -> {
+            out.writeInt(user.getId());
+            writeString(out, user.getEmail());
+            writeString(out, user.getLogin());
+            writeString(out, user.getName());
+            writeDate(out, user.getBirthday());
+        });
+    }
+
+    static byte[] id(byte type, int id) {
+        return encode(type, out -> out.writeInt(id));
+    }
+
+    static byte[] pair(byte type, int left, int right) {
+        return encode(type, out -> {
+            out.writeInt(left);
+            out.writeInt(right);
+        });
+    }
+
+    static byte[] idWithIds(byte type, int id, int[] ids) {
+        return encode(type, out -> {
+            out.writeInt(id);
+            out.writeInt(ids.length);
+            for (int value : ids) {
+                out.writeInt(value);
+            }
+        });
+    }
+
+    static void replay(byte[] record, Target target) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        switch (type) {
+            case FILM_PUT:
+                target.putFilm(readFilm(in));
+                break;
+            case FILM_DELETE:
+                target.deleteFilm(in.readInt());
+                break;
+            case USER_PUT:
+                target.putUser(readUser(in));
+                break;
+            case USER_DELETE:
+                target.deleteUser(in.readInt());
+                break;
+            case LIKE_ADD:
+                target.addLike(in.readInt(), in.readInt());
+                break;
+            case LIKE_REMOVE:
+                target.removeLike(in.readInt(), in.readInt());
+                break;
+            case USER_LIKES_REMOVE:
+                target.removeUserLikes(in.readInt());
+                break;
+            case FILM_LIKES_REMOVE:
+                target.removeFilmLikes(in.readInt());
+                break;
+            case FRIENDSHIP_ADD:
+                target.addFriendship(in.readInt(), in.readInt());
+                break;
+            case FRIENDSHIP_REMOVE:
+                target.removeFriendship(in.readInt(), in.readInt());
+                break;
+            case USER_FRIENDSHIPS_REMOVE:
+                target.removeUserFriendships(in.readInt());
+                break;
+            case NEXT_IDS:
+                target.restoreNextIds(in.readInt(), in.readInt());
+                break;
+            case FILM_LIKES: {
+                int filmId = in.readInt();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    target.addLike(in.readInt(), filmId);
+                }
+                break;
+            }
+            case USER_FRIENDS: {
+                int userId = in.readInt();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    target.addFriendship(userId, in.readInt());
+                }
+                break;
+            }
+            default:
+                throw new IOException("Неизвестный тип записи журнала: " + type);
+        }
+    }
+
+    private static Film readFilm(DataInput in) throws IOException {
+        Film.FilmBuilder builder = Film.builder()
+                .id(in.readInt())
+                .name(readString(in))
+                .description(readString(in))
+                .releaseDate(readDate(in))
+                .duration(in.readLong());
+        if (in.readBoolean()) {
+            builder.mpa(Mpa.builder().id(readInteger(in)).name(readString(in)).build());
+        }
+        int genresCount = in.readInt();
+        if (genresCount >= 0) {
+            List<Genre> genres = new ArrayList<>(genresCount);
+            for (int i = 0; i < genresCount; i++) {
+                genres.add(Genre.builder().id(readInteger(in)).name(readString(in)).build());
+            }
+            builder.genres(genres);
+        }
+        return builder.build();
+    }
+
+    private static User readUser(DataInput in) throws IOException {
+        return User.builder()
+                .id(in.readInt())
+                .email(readString(in))
+                .login(readString(in))
+                .name(readString(in))
+                .birthday(readDate(in))
+                .build();
+    }
+
+    private static byte[] encode(byte type, Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(type);
+            writer.write(out);
+        } catch (IOException e) {
+            // Запись в массив в памяти не бросает IOException
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInteger(DataOutput out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeDate(DataOutput out, LocalDate value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochDay());
+        }
+    }
+
+    private static LocalDate readDate(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+}
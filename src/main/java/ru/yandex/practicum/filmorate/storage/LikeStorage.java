@@ -4,13 +4,38 @@ import java.util.List;
 import java.util.Map;
 
 public interface LikeStorage {
-    void addUserLikeToFilm(Integer userId, Integer filmId);
+    boolean addUserLikeToFilm(Integer userId, Integer filmId);
 
-    void removeUserLikeFromFilm(Integer userId, Integer filmId);
+    boolean removeUserLikeFromFilm(Integer userId, Integer filmId);
+
+    /**
+     * Добавляет фильм без лайков в индекс популярности
+     */
+    void addFilm(Integer filmId);
 
     void removeAllUserLikes(Integer userId);
 
     void removeAllFilmLikes(Integer filmId);
 
-    Map<Integer, List<Integer>> getCountsOfLikesByFilms();
+    int getLikesCount(Integer filmId);
+
+    /**
+     * @return количество лайков по ИД фильма, только для фильмов, у которых есть лайки
+     */
+    Map<Integer, Integer> getLikesCountByFilms();
+
+    /**
+     * @return копия ИД понравившихся фильмов по пользователям
+     */
+    Map<Integer, int[]> copyFilmIdsByUser();
+
+    /**
+     * @return ИД фильмов по убыванию лайков, при равенстве по возрастанию ИД
+     */
+    List<Integer> getMostLikedFilmIds(int from, int limit);
+
+    /**
+     * @return ИД фильмов в том же порядке, что и getMostLikedFilmIds, после фильма filmId с likes лайками
+     */
+    List<Integer> getMostLikedFilmIdsAfter(int likes, int filmId, int limit);
 }
@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.GenreMapper;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.MpaMapper;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Справочники жанров и рейтингов MPA в памяти. Таблицы маленькие и почти не меняются (заполняются миграцией R__reference_data.sql),
+ * поэтому они читаются целиком при старте и заменяются новым неизменяемым снимком при вызове refresh().
+ * Наружу отдаются копии, чтобы изменение полученного объекта не испортило снимок
+ */
+@Component
+@Slf4j
+public class ReferenceDataCache {
+    private final JdbcTemplate jdbcTemplate;
+    private final RowMapper<Genre> genreMapper;
+    private final RowMapper<Mpa> mpaMapper;
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public ReferenceDataCache(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.genreMapper = new GenreMapper();
+        this.mpaMapper = new MpaMapper();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    public List<Genre> getAllGenres() {
+        return getSnapshot().genresById.values().stream()
+                .map(genre -> genre.toBuilder().build())
+                .collect(Collectors.toList());
+    }
+
+    public List<Mpa> getAllMpa() {
+        return getSnapshot().mpaById.values().stream()
+                .map(mpa -> mpa.toBuilder().build())
+                .collect(Collectors.toList());
+    }
+
+    public Optional<Genre> getGenreById(Integer id) {
+        return Optional.ofNullable(getSnapshot().genresById.get(id)).map(genre -> genre.toBuilder().build());
+    }
+
+    public Optional<Mpa> getMpaById(Integer id) {
+        return Optional.ofNullable(getSnapshot().mpaById.get(id)).map(mpa -> mpa.toBuilder().build());
+    }
+
+    /**
+     * Жанр для только что записанного фильма. Внешний ключ уже проверен базой,
+     * так что отсутствие жанра в снимке означает, что снимок устарел и его надо перечитать
+     */
+    public Genre resolveGenre(Integer id) {
+        return getGenreById(id).orElseGet(() -> {
+            refresh();
+            return getGenreById(id).orElseThrow();
+        });
+    }
+
+    /**
+     * Рейтинг для только что записанного фильма, перечитывает снимок если рейтинга в нем нет
+     */
+    public Mpa resolveMpa(Integer id) {
+        return getMpaById(id).orElseGet(() -> {
+            refresh();
+            return getMpaById(id).orElseThrow();
+        });
+    }
+
+    /**
+     * Перечитывает оба справочника из базы и атомарно подменяет снимок
+     */
+    public synchronized void refresh() {
+        Map<Integer, Genre> genresById = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT * FROM genre ORDER BY genre_id", genreMapper)
+                .forEach(genre -> genresById.put(genre.getId(), genre));
+        Map<Integer, Mpa> mpaById = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT * FROM mpa ORDER BY mpa_id", mpaMapper)
+                .forEach(mpa -> mpaById.put(mpa.getId(), mpa));
+        snapshot = new Snapshot(genresById, mpaById);
+        log.debug("Загружено жанров: {}, рейтингов: {}", genresById.size(), mpaById.size());
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        private final Map<Integer, Genre> genresById;
+        private final Map<Integer, Mpa> mpaById;
+
+        private Snapshot(Map<Integer, Genre> genresById, Map<Integer, Mpa> mpaById) {
+            this.genresById = Collections.unmodifiableMap(genresById);
+            this.mpaById = Collections.unmodifiableMap(mpaById);
+        }
+    }
+}
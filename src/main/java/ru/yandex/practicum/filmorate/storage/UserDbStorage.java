@@ -1,59 +1,94 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.UserMapper;
+import ru.yandex.practicum.filmorate.util.IntSetIntersection;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 
+// В профиле inmemory запросы обслуживают хранилища в памяти
 @Component
 @Primary
+@Profile("!inmemory")
 public class UserDbStorage extends AbstractDbStorage<User> implements UserStorage {
+    // Ограничение на количество ИД в одном IN (...)
+    private static final int USERS_BATCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final RowMapper<User> mapper;
+    // Метаданные таблицы читаются при первой вставке, дальше используется уже скомпилированный запрос
+    private final SimpleJdbcInsert userInsert;
+    // Перечитывать пользователя из базы после записи, а не собирать его из запроса
+    private final boolean strictReadBack;
 
     @Autowired
-    public UserDbStorage(JdbcTemplate jdbcTemplate) {
-        super(jdbcTemplate, new UserMapper());
+    public UserDbStorage(JdbcTemplate jdbcTemplate,
+                         @Value("${filmorate.storage.strict-read-back:false}") boolean strictReadBack) {
+        super(jdbcTemplate, new UserMapper(), "film_user", "user_id");
         this.mapper = new UserMapper();
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.strictReadBack = strictReadBack;
+        this.userInsert = new SimpleJdbcInsert(jdbcTemplate).withTableName("film_user")
+                .usingColumns("name", "email", "login", "birth_date")
+                .usingGeneratedKeyColumns("user_id");
     }
 
     @Override
     public User create(User newObject) {
-        SimpleJdbcInsert simpleJdbcInsert =
-                new SimpleJdbcInsert(jdbcTemplate).withTableName(getResourceName())
-                        .usingGeneratedKeyColumns(getResourceIdName());
-
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("name", newObject.getName());
         parameters.put("email", newObject.getEmail());
         parameters.put("login", newObject.getLogin());
         parameters.put("birth_date", java.sql.Date.valueOf(newObject.getBirthday()));
 
-        return super.getById(simpleJdbcInsert.executeAndReturnKey(parameters).intValue()).orElseThrow();
+        Integer key = userInsert.executeAndReturnKey(parameters).intValue();
+        rememberExistingId(key);
+        if (strictReadBack) {
+            return super.getById(key).orElseThrow();
+        }
+        return newObject.toBuilder().id(key).isFriend(null).build();
     }
 
     @Override
     public User update(User updatedObject) {
-        String sql = "UPDATE " + getResourceName() +
-                " SET email = ?, name = ?, login = ?, birth_date = ? " +
-                " WHERE " + getResourceIdName() + " = ?";
-        jdbcTemplate.update(sql, updatedObject.getEmail(),
+        String sql = "UPDATE film_user " +
+                "SET email = ?, name = ?, login = ?, birth_date = ? " +
+                "WHERE user_id = ?";
+        int updated = jdbcTemplate.update(sql, updatedObject.getEmail(),
                 updatedObject.getName(), updatedObject.getLogin(),
                 updatedObject.getBirthday(), updatedObject.getId());
-        return super.getById(updatedObject.getId()).orElseThrow();
+        if (updated == 0) {
+            throw new NoSuchElementException();
+        }
+        if (strictReadBack) {
+            return super.getById(updatedObject.getId()).orElseThrow();
+        }
+        return updatedObject.toBuilder().isFriend(null).build();
     }
 
     @Override
     public void delete(Integer id) {
+        String likesCountSql = "UPDATE film SET likes_count = likes_count - 1 " +
+                "WHERE film_id IN (SELECT film_id FROM favorite_films WHERE user_id = ?)";
+        jdbcTemplate.update(likesCountSql, id);
         String favoriteFilmsSql = "DELETE FROM favorite_films WHERE user_id = ?";
         jdbcTemplate.update(favoriteFilmsSql, id);
         String friendshipsSql = "DELETE FROM friendships WHERE user_left_id = ? OR user_right_id = ?";
@@ -61,19 +96,9 @@ public class UserDbStorage extends AbstractDbStorage<User> implements UserStorag
         super.delete(id);
     }
 
-    @Override
-    protected String getResourceIdName() {
-        return "user_id";
-    }
-
-    @Override
-    protected String getResourceName() {
-        return "film_user";
-    }
-
     @Override
     public List<User> getFriendsByUserId(Integer id) {
-        String sql = "SELECT fu.*, COUNT(fsr.friendships_id) > 0 AS is_friend FROM film_user AS fu " +
+        String sql = "SELECT fu.*, COUNT(fsr.user_left_id) > 0 AS is_friend FROM film_user AS fu " +
                 "JOIN friendships AS fs ON fs.user_left_id = ? AND fu.user_id = fs.user_right_id " +
                 "LEFT JOIN friendships AS fsr ON fsr.user_right_id = fs.user_left_id AND fsr.user_left_id = fs.user_right_id " +
                 "GROUP BY fu.user_id " +
@@ -81,21 +106,37 @@ public class UserDbStorage extends AbstractDbStorage<User> implements UserStorag
         return jdbcTemplate.query(sql, mapper, id);
     }
 
+    /**
+     * Вместо соединения четырех таблиц с группировкой: два чтения ИД друзей по первичному ключу friendships
+     * (уже отсортированы), пересечение в памяти и чтение найденных пользователей по ИД
+     */
     @Override
     public List<User> getCommonFriends(Integer userId, Integer otherId) {
-        String sql = "SELECT fu.*, COUNT(fsr.friendships_id) > 0 AS is_friend FROM film_user AS fu " +
-                "JOIN friendships AS fs ON fs.user_left_id = ? AND fu.user_id = fs.user_right_id " +
-                "LEFT JOIN friendships AS fsr ON fsr.user_right_id = fs.user_left_id AND fsr.user_left_id = fs.user_right_id " +
-                "JOIN friendships AS fso ON fso.user_left_id = ? AND fu.user_id = fso.user_right_id " +
-                "GROUP BY fu.user_id " +
-                "ORDER BY fu.user_id ";
-        return jdbcTemplate.query(sql, mapper, userId, otherId);
+        int[] common = IntSetIntersection.intersect(getFriendIds(userId), getFriendIds(otherId));
+        List<User> result = new ArrayList<>(common.length);
+        String sql = "SELECT fu.*, EXISTS(SELECT 1 FROM friendships AS fsr " +
+                "WHERE fsr.user_left_id = fu.user_id AND fsr.user_right_id = :userId) AS is_friend " +
+                "FROM film_user AS fu " +
+                "WHERE fu.user_id IN (:ids) " +
+                "ORDER BY fu.user_id";
+        for (int i = 0; i < common.length; i += USERS_BATCH_SIZE) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource("userId", userId)
+                    .addValue("ids", Arrays.stream(common, i, Math.min(i + USERS_BATCH_SIZE, common.length))
+                            .boxed().collect(Collectors.toList()));
+            result.addAll(namedParameterJdbcTemplate.query(sql, parameters, mapper));
+        }
+        return result;
+    }
+
+    private int[] getFriendIds(Integer userId) {
+        String sql = "SELECT user_right_id FROM friendships WHERE user_left_id = ? ORDER BY user_right_id";
+        return jdbcTemplate.queryForList(sql, Integer.class, userId).stream().mapToInt(Integer::intValue).toArray();
     }
 
     @Override
     public void addFriendship(Integer userId, Integer friendId) {
-        String sql = "INSERT INTO friendships(user_left_id, user_right_id) " +
-                "VALUES(?, ?) ";
+        String sql = "MERGE INTO friendships(user_left_id, user_right_id) " +
+                "KEY(user_left_id, user_right_id) VALUES(?, ?) ";
         jdbcTemplate.update(sql, userId, friendId);
     }
 
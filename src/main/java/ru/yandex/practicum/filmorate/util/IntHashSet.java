@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество int без упаковки в Integer: открытая адресация с линейным пробированием в одном массиве int[].
+ * Элемент занимает 4 байта, при заполнении не больше LOAD_FACTOR таблица удваивается.
+ * Ячейка со значением 0 считается свободной, сам 0 хранится отдельным флагом.
+ * Не потокобезопасно
+ */
+public class IntHashSet {
+    private static final int MIN_CAPACITY = 4;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] table;
+    private int mask;
+    private int size;
+    private boolean hasZero;
+
+    public IntHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        if (value == 0) {
+            return hasZero;
+        }
+        for (int i = index(value); ; i = (i + 1) & mask) {
+            int current = table[i];
+            if (current == value) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return true если значения не было в множестве
+     */
+    public boolean add(int value) {
+        if (value == 0) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = index(value);
+        for (; table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == value) {
+                return false;
+            }
+        }
+        table[i] = value;
+        size++;
+        if (size > table.length * LOAD_FACTOR) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return true если значение было в множестве
+     */
+    public boolean remove(int value) {
+        if (value == 0) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            return true;
+        }
+        for (int i = index(value); table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == value) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (hasZero) {
+            action.accept(0);
+        }
+        for (int value : table) {
+            if (value != 0) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * @return значения в порядке возрастания
+     */
+    public int[] toSortedArray() {
+        int[] result = new int[size];
+        int position = 0;
+        if (hasZero) {
+            result[position++] = 0;
+        }
+        for (int value : table) {
+            if (value != 0) {
+                result[position++] = value;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Примерный размер множества в памяти, для оценки расхода памяти хранилищами
+     */
+    public long estimatedBytes() {
+        // Заголовок объекта с полями и заголовок массива
+        return 32L + 16L + 4L * table.length;
+    }
+
+    /**
+     * Удаление без пометок "удалено": следующие элементы той же цепочки сдвигаются на освободившееся место,
+     * поэтому поиск по-прежнему останавливается на первой пустой ячейке
+     */
+    private void shiftBack(int freed) {
+        int i = freed;
+        while (true) {
+            i = (i + 1) & mask;
+            int current = table[i];
+            if (current == 0) {
+                break;
+            }
+            int home = index(current);
+            // Элемент можно сдвинуть, если его исходная ячейка не лежит между освобожденной и текущей
+            boolean between = freed <= i ? (freed < home && home <= i) : (freed < home || home <= i);
+            if (!between) {
+                table[freed] = current;
+                freed = i;
+            }
+        }
+        table[freed] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = table;
+        allocate(capacity);
+        for (int value : old) {
+            if (value != 0) {
+                int i = index(value);
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int index(int value) {
+        // Перемешивание битов: ИД идут подряд и без него заняли бы соседние ячейки одной длинной цепочкой
+        int hash = value * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.util;
+
+/**
+ * Отображение int в int без упаковки: открытая адресация с линейным пробированием, ключи и значения
+ * в двух параллельных массивах. Отсутствующий ключ читается как 0, ключ со значением 0 удаляется,
+ * так что в таблице хранятся только ненулевые счетчики. Ячейка с ключом 0 считается свободной, сам ключ 0
+ * хранится отдельно. Не потокобезопасно
+ */
+public class IntIntHashMap {
+    private static final int MIN_CAPACITY = 4;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int zeroKeyValue;
+
+    public IntIntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int key) {
+        if (key == 0) {
+            return zeroKeyValue;
+        }
+        for (int i = index(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Прибавляет delta к значению ключа
+     *
+     * @return новое значение, 0 - ключ удален
+     */
+    public int addTo(int key, int delta) {
+        if (key == 0) {
+            int previous = zeroKeyValue;
+            zeroKeyValue += delta;
+            size += (previous == 0 ? 1 : 0) - (zeroKeyValue == 0 ? 1 : 0);
+            return zeroKeyValue;
+        }
+        int i = index(key);
+        for (; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] += delta;
+                if (values[i] == 0) {
+                    shiftBack(i);
+                    size--;
+                    return 0;
+                }
+                return values[i];
+            }
+        }
+        if (delta == 0) {
+            return 0;
+        }
+        keys[i] = key;
+        values[i] = delta;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+        return delta;
+    }
+
+    public void remove(int key) {
+        if (key == 0) {
+            if (zeroKeyValue != 0) {
+                zeroKeyValue = 0;
+                size--;
+            }
+            return;
+        }
+        for (int i = index(key); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return;
+            }
+        }
+    }
+
+    public void forEach(EntryConsumer action) {
+        if (zeroKeyValue != 0) {
+            action.accept(0, zeroKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Удаление сдвигом следующих элементов цепочки, как в IntHashSet
+    private void shiftBack(int freed) {
+        int i = freed;
+        while (true) {
+            i = (i + 1) & mask;
+            int current = keys[i];
+            if (current == 0) {
+                break;
+            }
+            int home = index(current);
+            boolean between = freed <= i ? (freed < home && home <= i) : (freed < home || home <= i);
+            if (!between) {
+                keys[freed] = current;
+                values[freed] = values[i];
+                freed = i;
+            }
+        }
+        keys[freed] = 0;
+        values[freed] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = index(oldKeys[j]);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int index(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Пересечение множеств ИД (общие друзья). Способ выбирается по размерам множеств:
+ * <ul>
+ *     <li>отсортированные массивы близкого размера - слиянием за O(n + m);</li>
+ *     <li>отсортированные массивы, один из которых в GALLOP_RATIO раз больше, - галопом: каждый элемент меньшего
+ *     ищется в большем экспоненциальным, а затем двоичным поиском от предыдущей найденной позиции, O(n log(m / n));</li>
+ *     <li>IntSortedSet - так же, как отсортированные массивы, без копирования;</li>
+ *     <li>битовые карты - пословным AND;</li>
+ *     <li>IntHashSet - проверкой элементов меньшего множества в большем за O(min(n, m)).</li>
+ * </ul>
+ * Результат всегда отсортирован по возрастанию
+ */
+public final class IntSetIntersection {
+    private static final int[] EMPTY = new int[0];
+    // Во сколько раз большее множество должно превосходить меньшее, чтобы галоп был выгоднее слияния
+    static final int GALLOP_RATIO = 16;
+
+    private IntSetIntersection() {
+    }
+
+    /**
+     * @param a - отсортированный по возрастанию массив без повторов
+     * @param b - отсортированный по возрастанию массив без повторов
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        return intersect(a, a.length, b, b.length);
+    }
+
+    public static int[] intersect(IntSortedSet a, IntSortedSet b) {
+        return intersect(a.elements, a.size, b.elements, b.size);
+    }
+
+    public static int[] intersect(BitSet a, BitSet b) {
+        BitSet result = (BitSet) (a.length() <= b.length() ? a : b).clone();
+        result.and(a.length() <= b.length() ? b : a);
+        return result.stream().toArray();
+    }
+
+    public static int[] intersect(IntHashSet a, IntHashSet b) {
+        IntHashSet small = a.size() <= b.size() ? a : b;
+        IntHashSet large = a.size() <= b.size() ? b : a;
+        int[] result = new int[small.size()];
+        int[] count = new int[1];
+        small.forEach(value -> {
+            if (large.contains(value)) {
+                result[count[0]++] = value;
+            }
+        });
+        int[] common = Arrays.copyOf(result, count[0]);
+        Arrays.sort(common);
+        return common;
+    }
+
+    public static BitSet toBitSet(IntHashSet values) {
+        BitSet result = new BitSet();
+        values.forEach(result::set);
+        return result;
+    }
+
+    static int[] merge(int[] a, int[] b) {
+        return merge(a, a.length, b, b.length);
+    }
+
+    static int[] gallop(int[] small, int[] large) {
+        return gallop(small, small.length, large, large.length);
+    }
+
+    // Используются первые aLength и bLength элементов массивов
+    private static int[] intersect(int[] a, int aLength, int[] b, int bLength) {
+        if (aLength > bLength) {
+            return intersect(b, bLength, a, aLength);
+        }
+        if (aLength == 0) {
+            return EMPTY;
+        }
+        if ((long) aLength * GALLOP_RATIO < bLength) {
+            return gallop(a, aLength, b, bLength);
+        }
+        return merge(a, aLength, b, bLength);
+    }
+
+    private static int[] merge(int[] a, int aLength, int[] b, int bLength) {
+        int[] result = new int[Math.min(aLength, bLength)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aLength && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] gallop(int[] small, int smallLength, int[] large, int largeLength) {
+        int[] result = new int[smallLength];
+        int count = 0;
+        int from = 0;
+        for (int i = 0; i < smallLength; i++) {
+            int value = small[i];
+            if (from >= largeLength) {
+                break;
+            }
+            // Экспоненциальный поиск границы, за которой значение уже больше искомого
+            int step = 1;
+            while (from + step < largeLength && large[from + step] < value) {
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(large, from + (step >> 1), Math.min(from + step + 1, largeLength), value);
+            if (index >= 0) {
+                result[count++] = value;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество int в отсортированном по возрастанию массиве без упаковки в Integer.
+ * Элемент занимает 4 байта, поиск двоичный, вставка и удаление сдвигают хвост массива.
+ * Пересечение двух таких множеств идет слиянием или галопом без сортировки (см. IntSetIntersection).
+ * Не потокобезопасно
+ */
+public class IntSortedSet {
+    private static final int MIN_CAPACITY = 4;
+
+    int[] elements;
+    int size;
+
+    public IntSortedSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntSortedSet(int expectedSize) {
+        elements = new int[Math.max(expectedSize, MIN_CAPACITY)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(elements, 0, size, value) >= 0;
+    }
+
+    /**
+     * @return true если значения не было в множестве
+     */
+    public boolean add(int value) {
+        // Значения чаще всего приходят по возрастанию (ИД новых пользователей, восстановление из снимка)
+        int index = size > 0 && elements[size - 1] < value ? -size - 1 : Arrays.binarySearch(elements, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        int position = -index - 1;
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1));
+        }
+        System.arraycopy(elements, position, elements, position + 1, size - position);
+        elements[position] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return true если значение было в множестве
+     */
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(elements, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Обходит значения по возрастанию
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    /**
+     * @return копия значений в порядке возрастания
+     */
+    public int[] toSortedArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Примерный размер множества в памяти, для оценки расхода памяти хранилищами
+     */
+    public long estimatedBytes() {
+        // Заголовок объекта с полями и заголовок массива
+        return 24L + 16L + 4L * elements.length;
+    }
+}
@@ -0,0 +1,6 @@
+-- Счетчик лайков фильма для запроса популярных фильмов, поддерживается приложением при добавлении и удалении лайков.
+-- IF NOT EXISTS: в базах, созданных до перехода на миграции, колонка и индекс уже могут быть
+ALTER TABLE film ADD COLUMN IF NOT EXISTS likes_count INTEGER DEFAULT 0 NOT NULL;
+CREATE INDEX IF NOT EXISTS film_likes_count_idx ON film (likes_count DESC, film_id);
+UPDATE film AS f SET likes_count =
+    (SELECT COUNT(DISTINCT ff.user_id) FROM favorite_films AS ff WHERE ff.film_id = f.film_id);
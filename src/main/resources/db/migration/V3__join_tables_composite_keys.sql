@@ -0,0 +1,37 @@
+-- Таблицы связей переходят с суррогатных ИД на составные первичные ключи: повторы становятся невозможны,
+-- а поиск по первой колонке ключа идет по индексу. Для поиска с другой стороны добавлены обратные индексы.
+-- Повторы и строки с NULL, накопленные до миграции, отбрасываются
+
+CREATE TABLE film_genres_new (
+                  film_id INTEGER NOT NULL REFERENCES film (film_id),
+                  genre_id INTEGER NOT NULL REFERENCES genre (genre_id),
+                  PRIMARY KEY (film_id, genre_id)
+              );
+INSERT INTO film_genres_new (film_id, genre_id)
+    SELECT DISTINCT film_id, genre_id FROM film_genres WHERE film_id IS NOT NULL AND genre_id IS NOT NULL;
+DROP TABLE film_genres;
+ALTER TABLE film_genres_new RENAME TO film_genres;
+CREATE INDEX film_genres_genre_film_idx ON film_genres (genre_id, film_id);
+
+CREATE TABLE favorite_films_new (
+                  film_id INTEGER NOT NULL REFERENCES film (film_id),
+                  user_id INTEGER NOT NULL REFERENCES film_user (user_id),
+                  PRIMARY KEY (film_id, user_id)
+              );
+INSERT INTO favorite_films_new (film_id, user_id)
+    SELECT DISTINCT film_id, user_id FROM favorite_films WHERE film_id IS NOT NULL AND user_id IS NOT NULL;
+DROP TABLE favorite_films;
+ALTER TABLE favorite_films_new RENAME TO favorite_films;
+CREATE INDEX favorite_films_user_film_idx ON favorite_films (user_id, film_id);
+
+CREATE TABLE friendships_new (
+                  user_left_id INTEGER NOT NULL REFERENCES film_user (user_id),
+                  user_right_id INTEGER NOT NULL REFERENCES film_user (user_id),
+                  PRIMARY KEY (user_left_id, user_right_id)
+              );
+INSERT INTO friendships_new (user_left_id, user_right_id)
+    SELECT DISTINCT user_left_id, user_right_id FROM friendships
+    WHERE user_left_id IS NOT NULL AND user_right_id IS NOT NULL;
+DROP TABLE friendships;
+ALTER TABLE friendships_new RENAME TO friendships;
+CREATE INDEX friendships_right_left_idx ON friendships (user_right_id, user_left_id);
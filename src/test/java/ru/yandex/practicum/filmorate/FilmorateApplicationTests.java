@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -14,6 +15,7 @@ import ru.yandex.practicum.filmorate.storage.UserDbStorage;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -27,6 +29,8 @@ class FilmorateApplicationTests {
 
     private final FilmDbStorage filmDbStorage;
 
+    private final JdbcTemplate jdbcTemplate;
+
     @Test
     public void testFindUserById() {
         User defaultUser = User.builder()
@@ -46,6 +50,8 @@ class FilmorateApplicationTests {
                 .hasValueSatisfying(user ->
                         assertThat(user).hasFieldOrPropertyWithValue("id", updatedUser.getId())
                 );
+        // Контекст и база общие с интеграционными тестами контроллеров, которые считают всех пользователей
+        userStorage.delete(updatedUser.getId());
     }
 
     @Test
@@ -69,5 +75,20 @@ class FilmorateApplicationTests {
                 .hasValueSatisfying(film ->
                         assertThat(film).hasFieldOrPropertyWithValue("id", updatedFilm.getId())
                 );
+        filmDbStorage.delete(updatedFilm.getId());
+    }
+
+    @Test
+    public void testJoinTablesAreReadByIndexFromBothSides() {
+        List<String> queries = List.of(
+                "SELECT genre_id FROM film_genres WHERE film_id = 1",
+                "SELECT film_id FROM film_genres WHERE genre_id = 1",
+                "SELECT user_id FROM favorite_films WHERE film_id = 1",
+                "SELECT film_id FROM favorite_films WHERE user_id = 1",
+                "SELECT user_right_id FROM friendships WHERE user_left_id = 1",
+                "SELECT user_left_id FROM friendships WHERE user_right_id = 1");
+        queries.forEach(sql -> assertThat(jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class))
+                .as(sql)
+                .doesNotContain("tableScan"));
     }
 }
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SqlCountingDataSourceTest {
+    private JdbcTemplate jdbcTemplate;
+    private SqlCountingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:sql-counting;DB_CLOSE_DELAY=-1");
+        dataSource = new SqlCountingDataSource(h2);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS item");
+        jdbcTemplate.execute("CREATE TABLE item (id INTEGER PRIMARY KEY)");
+    }
+
+    @Test
+    void shouldCountStatementsOfCurrentThread() {
+        long before = SqlStatementCounter.current();
+        jdbcTemplate.update("INSERT INTO item (id) VALUES (?)", 1);
+        jdbcTemplate.queryForList("SELECT id FROM item", Integer.class);
+        jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item WHERE id = ?", Integer.class, 1);
+        assertEquals(3, SqlStatementCounter.current() - before);
+    }
+
+    @Test
+    void batchShouldCountAsOneStatement() {
+        long before = SqlStatementCounter.current();
+        jdbcTemplate.batchUpdate("INSERT INTO item (id) VALUES (?)", List.of(new Object[]{1}, new Object[]{2},
+                new Object[]{3}));
+        assertEquals(1, SqlStatementCounter.current() - before);
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class));
+    }
+
+    @Test
+    void otherThreadsShouldNotBeCounted() throws InterruptedException {
+        long before = SqlStatementCounter.current();
+        Thread other = new Thread(() -> jdbcTemplate.queryForList("SELECT id FROM item", Integer.class));
+        other.start();
+        other.join();
+        assertEquals(0, SqlStatementCounter.current() - before);
+    }
+
+    @Test
+    void connectionWrapperShouldBeEqualOnlyToItself() throws Exception {
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            assertEquals(first, first);
+            assertNotEquals(first, second);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// В профиле inmemory фильмы хранятся в памяти, а справочники читаются из базы. Журнал на диск не пишется
+@SpringBootTest(properties = "filmorate.inmemory.journal.enabled=false")
+@AutoConfigureTestDatabase
+@ActiveProfiles("inmemory")
+class FilmControllerInMemoryIntegrationTest {
+    private final FilmController filmController;
+
+    @Autowired
+    public FilmControllerInMemoryIntegrationTest(FilmController filmController) {
+        this.filmController = filmController;
+    }
+
+    @Test
+    void shouldResolveMpaAndGenresLikeDbStorage() {
+        Film film = filmController.create(Film.builder()
+                .description("Веселый фильм")
+                .name("Ёлочка")
+                .duration(3600)
+                .mpa(Mpa.builder().id(1).build())
+                .genres(List.of(Genre.builder().id(2).build(), Genre.builder().id(1).build(),
+                        Genre.builder().id(2).build()))
+                .releaseDate(LocalDate.of(1983, 12, 27)).build());
+        try {
+            for (Film stored : List.of(film, filmController.getById(film.getId()))) {
+                assertEquals("G", stored.getMpa().getName());
+                assertEquals(List.of(1, 2), stored.getGenres().stream().map(Genre::getId).collect(Collectors.toList()));
+                assertEquals("Комедия", stored.getGenres().get(0).getName());
+            }
+
+            Film updated = filmController.update(film.toBuilder().mpa(Mpa.builder().id(2).build()).build());
+            assertEquals("PG", updated.getMpa().getName());
+        } finally {
+            filmController.delete(film.getId());
+        }
+    }
+}
@@ -7,19 +7,27 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.config.SqlStatementCounter;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmPopularityCache;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
-@SpringBootTest
+// Эндпоинт, выполнивший больше SQL-запросов, чем его бюджет, завершается ошибкой и валит тест
+@SpringBootTest(properties = {
+        "filmorate.sql.budget.fail-on-exceed=true",
+        "filmorate.sql.budget.FilmController.findAll=2",
+        "filmorate.sql.budget.FilmController.getFilmsByLikes=3"
+})
 @AutoConfigureTestDatabase
 class FilmControllerIntegrationTest {
     private static final LocalDate BEFORE_MIN_RELEASE_DATE = LocalDate.of(1895, 12, 27);
@@ -27,13 +35,16 @@ class FilmControllerIntegrationTest {
     private static final Integer NOT_EXIST_FILM_ID = 100501;
     private final FilmController filmController;
     private final UserController userController;
+    private final FilmPopularityCache popularityCache;
     private Film defaultFilm;
     private User defaultUser;
 
     @Autowired
-    public FilmControllerIntegrationTest(FilmController filmController, UserController userController) {
+    public FilmControllerIntegrationTest(FilmController filmController, UserController userController,
+                                         FilmPopularityCache popularityCache) {
         this.filmController = filmController;
         this.userController = userController;
+        this.popularityCache = popularityCache;
     }
 
     @BeforeEach
@@ -101,6 +112,35 @@ class FilmControllerIntegrationTest {
         assertEquals(secondFilm.getName(), topFilms.get(0).getName());
     }
 
+    @Test
+    void shouldNotDependOnFilmsCountInSqlStatements() {
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Film film = filmController.create(defaultFilm.toBuilder().id(null).name("Фильм " + i).build());
+            filmController.addUserLikeToFilm(defaultUser.getId(), film.getId());
+            films.add(film);
+        }
+        try {
+            // Список фильмов и жанры всех фильмов
+            long before = SqlStatementCounter.current();
+            filmController.findAll();
+            assertEquals(2, SqlStatementCounter.current() - before);
+
+            // Пустой кэш: количество лайков, затем фильмы и их жанры
+            popularityCache.invalidate();
+            before = SqlStatementCounter.current();
+            List<Film> topFilms = filmController.getFilmsByLikes(10);
+            assertEquals(3, SqlStatementCounter.current() - before);
+
+            // Все фильмы уже в кэше
+            before = SqlStatementCounter.current();
+            assertEquals(topFilms, filmController.getFilmsByLikes(10));
+            assertEquals(0, SqlStatementCounter.current() - before);
+        } finally {
+            films.forEach(film -> filmController.delete(film.getId()));
+        }
+    }
+
     @Test
     void should404ForNotExistUserWhenAddUserLikeToFilm() {
         NotFoundException exception = Assertions.assertThrows(
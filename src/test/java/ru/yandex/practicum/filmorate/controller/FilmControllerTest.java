@@ -1,13 +1,18 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmPopularityCache;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindBuffer;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
 import ru.yandex.practicum.filmorate.storage.InMemoryFriendsStorage;
@@ -16,6 +21,8 @@ import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -23,6 +30,7 @@ class FilmControllerTest {
     private static final LocalDate BEFORE_MIN_RELEASE_DATE = LocalDate.of(1895, 12, 27);
     private static final Integer NOT_EXIST_USER_ID = 100500;
     private static final Integer NOT_EXIST_FILM_ID = 100501;
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
     private FilmController controller;
     private UserController userController;
     private Film defaultFilm;
@@ -31,7 +39,10 @@ class FilmControllerTest {
     @BeforeEach
     void setUp() throws ValidationException {
         UserService userService = new UserService(new InMemoryUserStorage(new InMemoryLikeStorage(), new InMemoryFriendsStorage()));
-        controller = new FilmController(new FilmService(userService, new InMemoryFilmStorage(new InMemoryLikeStorage())));
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(new InMemoryLikeStorage());
+        controller = new FilmController(new FilmService(userService, filmStorage,
+                new FilmPopularityCache(filmStorage, 100),
+                new LikeWriteBehindBuffer(filmStorage, false, 10000, 500, 200)), OBJECT_MAPPER);
         defaultFilm = Film.builder()
                 .description("Веселый фильм")
                 .name("Ёлочка")
@@ -39,7 +50,7 @@ class FilmControllerTest {
                 .releaseDate(LocalDate.of(1983, 12, 27)).build();
         defaultFilm = controller.create(defaultFilm);
 
-        userController = new UserController(userService);
+        userController = new UserController(userService, OBJECT_MAPPER);
         defaultUser = User.builder()
                 .name("Обычный пользователь")
                 .email("user@mail.com")
@@ -122,6 +133,131 @@ class FilmControllerTest {
         );
     }
 
+    @Test
+    void shouldReturnPopularFilmsPageByPage() {
+        Film firstFilm = controller.create(defaultFilm.toBuilder().id(null).name("Роман").build());
+        Film secondFilm = controller.create(defaultFilm.toBuilder().id(null).name("Роман 2").build());
+        controller.addUserLikeToFilm(defaultUser.getId(), secondFilm.getId());
+
+        ResponseEntity<List<Film>> firstPage = controller.getFilmsByLikesPage(2, "");
+        assertEquals(List.of(secondFilm.getId(), defaultFilm.getId()),
+                firstPage.getBody().stream().map(Film::getId).collect(Collectors.toList()));
+        String cursor = firstPage.getHeaders().getFirst(AbstractController.NEXT_CURSOR_HEADER);
+        Assertions.assertNotNull(cursor);
+
+        ResponseEntity<List<Film>> secondPage = controller.getFilmsByLikesPage(2, cursor);
+        assertEquals(List.of(firstFilm.getId()),
+                secondPage.getBody().stream().map(Film::getId).collect(Collectors.toList()));
+        Assertions.assertNull(secondPage.getHeaders().getFirst(AbstractController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void shouldApplyBufferedLikesAfterFlush() {
+        UserService userService = new UserService(new InMemoryUserStorage(new InMemoryLikeStorage(), new InMemoryFriendsStorage()));
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(new InMemoryLikeStorage());
+        LikeWriteBehindBuffer likeBuffer = new LikeWriteBehindBuffer(filmStorage, true, 10000, 500, 200);
+        FilmController bufferedController = new FilmController(new FilmService(userService, filmStorage,
+                new FilmPopularityCache(filmStorage, 100), likeBuffer), OBJECT_MAPPER);
+        Film firstFilm = bufferedController.create(defaultFilm.toBuilder().id(null).build());
+        Film secondFilm = bufferedController.create(defaultFilm.toBuilder().id(null).name("Роман").build());
+        User user = userService.create(defaultUser.toBuilder().id(null).build());
+        bufferedController.addUserLikeToFilm(user.getId(), secondFilm.getId());
+        bufferedController.removeUserLikeFromFilm(user.getId(), secondFilm.getId());
+        bufferedController.addUserLikeToFilm(user.getId(), secondFilm.getId());
+        assertEquals(1, likeBuffer.getPendingCount());
+        assertEquals(firstFilm.getId(), bufferedController.getFilmsByLikes(1).get(0).getId());
+
+        likeBuffer.flush();
+        assertEquals(0, likeBuffer.getPendingCount());
+        assertEquals(secondFilm.getId(), bufferedController.getFilmsByLikes(1).get(0).getId());
+    }
+
+    @Test
+    void shouldNotCountLikeTwiceWhenCacheLoadsDuringLikeWrite() {
+        Runnable[] afterLikeWrite = {() -> {
+        }};
+        UserService userService = new UserService(new InMemoryUserStorage(new InMemoryLikeStorage(), new InMemoryFriendsStorage()));
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(new InMemoryLikeStorage()) {
+            @Override
+            public boolean addUserLikeToFilm(Integer userId, Integer filmId) {
+                boolean added = super.addUserLikeToFilm(userId, filmId);
+                // Лайк уже в хранилище, а кэш о нем еще не знает
+                Runnable hook = afterLikeWrite[0];
+                afterLikeWrite[0] = () -> {
+                };
+                hook.run();
+                return added;
+            }
+        };
+        FilmController cachedController = new FilmController(new FilmService(userService, filmStorage,
+                new FilmPopularityCache(filmStorage, 100),
+                new LikeWriteBehindBuffer(filmStorage, false, 10000, 500, 200)), OBJECT_MAPPER);
+        Film firstFilm = cachedController.create(defaultFilm.toBuilder().id(null).build());
+        Film secondFilm = cachedController.create(defaultFilm.toBuilder().id(null).name("Роман").build());
+        User firstUser = userService.create(defaultUser.toBuilder().id(null).build());
+        User secondUser = userService.create(defaultUser.toBuilder().id(null).login("secondUser").build());
+        cachedController.addUserLikeToFilm(firstUser.getId(), firstFilm.getId());
+
+        // Холодный кэш загружается между записью лайка и его применением к кэшу
+        afterLikeWrite[0] = () -> cachedController.getFilmsByLikes(2);
+        cachedController.addUserLikeToFilm(secondUser.getId(), secondFilm.getId());
+        List<Integer> topIds = cachedController.getFilmsByLikes(2).stream().map(Film::getId).collect(Collectors.toList());
+        assertEquals(List.of(firstFilm.getId(), secondFilm.getId()), topIds);
+
+        cachedController.removeUserLikeFromFilm(firstUser.getId(), firstFilm.getId());
+        assertEquals(secondFilm.getId(), cachedController.getFilmsByLikes(1).get(0).getId());
+    }
+
+    @Test
+    void shouldNotLoseLikeWrittenDuringCacheLoad() {
+        Runnable[] afterLikesCount = {() -> {
+        }};
+        UserService userService = new UserService(new InMemoryUserStorage(new InMemoryLikeStorage(), new InMemoryFriendsStorage()));
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(new InMemoryLikeStorage()) {
+            @Override
+            public Map<Integer, Integer> getLikesCountByFilms() {
+                Map<Integer, Integer> likesCount = super.getLikesCountByFilms();
+                // Количество лайков прочитано, а лайк пишется до того, как кэш его поставит
+                Runnable hook = afterLikesCount[0];
+                afterLikesCount[0] = () -> {
+                };
+                hook.run();
+                return likesCount;
+            }
+        };
+        FilmController cachedController = new FilmController(new FilmService(userService, filmStorage,
+                new FilmPopularityCache(filmStorage, 100),
+                new LikeWriteBehindBuffer(filmStorage, false, 10000, 500, 200)), OBJECT_MAPPER);
+        Film firstFilm = cachedController.create(defaultFilm.toBuilder().id(null).build());
+        Film secondFilm = cachedController.create(defaultFilm.toBuilder().id(null).name("Роман").build());
+        User user = userService.create(defaultUser.toBuilder().id(null).build());
+
+        afterLikesCount[0] = () -> cachedController.addUserLikeToFilm(user.getId(), secondFilm.getId());
+        assertEquals(secondFilm.getId(), cachedController.getFilmsByLikes(1).get(0).getId());
+        assertEquals(secondFilm.getId(), cachedController.getFilmsByLikes(1).get(0).getId());
+        assertEquals(firstFilm.getId(), cachedController.getFilmsByLikes(2).get(1).getId());
+    }
+
+    @Test
+    void shouldNotReturnPopularFilmsForNegativeCount() {
+        ValidationException exception = Assertions.assertThrows(
+                ValidationException.class, () -> {
+                    controller.getFilmsByLikes(-1);
+                }
+        );
+        assertEquals("Размер страницы должен быть от 1 до 1000", exception.getMessage());
+    }
+
+    @Test
+    void shouldNotReturnPageForBrokenCursor() {
+        ValidationException exception = Assertions.assertThrows(
+                ValidationException.class, () -> {
+                    controller.findPage(2, "не курсор");
+                }
+        );
+        assertEquals("Некорректный курсор страницы", exception.getMessage());
+    }
+
     @Test
     void shouldNotCreateNewFilmIfToLongDescription() {
         ValidationException exception = Assertions.assertThrows(
@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmPopularityCache;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFriendsStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecommendationControllerTest {
+    private static final Integer NOT_EXIST_ID = 100500;
+    private RecommendationController controller;
+    private RecommendationService recommendationService;
+    private FilmService filmService;
+    private UserService userService;
+    private final List<Integer> filmIds = new ArrayList<>();
+    private final List<Integer> userIds = new ArrayList<>();
+    // Выполняется внутри forEachLike, то есть посреди пересборки матрицы
+    private Runnable duringRebuild = () -> {
+    };
+
+    @BeforeEach
+    void setUp() {
+        InMemoryLikeStorage likeStorage = new InMemoryLikeStorage();
+        userService = new UserService(new InMemoryUserStorage(likeStorage, new InMemoryFriendsStorage()));
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(likeStorage) {
+            @Override
+            public void forEachLike(BiConsumer<Integer, Integer> action) {
+                super.forEachLike(action);
+                duringRebuild.run();
+            }
+        };
+        filmService = new FilmService(userService, filmStorage, new FilmPopularityCache(filmStorage, 100),
+                new LikeWriteBehindBuffer(filmStorage, false, 10000, 500, 200));
+        recommendationService = new RecommendationService(filmService, userService, filmStorage, 3600000);
+        controller = new RecommendationController(recommendationService);
+        for (int i = 0; i < 4; i++) {
+            filmIds.add(filmService.create(Film.builder()
+                    .name("Фильм " + i)
+                    .description("Описание " + i)
+                    .duration(3600)
+                    .releaseDate(LocalDate.of(1990 + i, 1, 1)).build()).getId());
+            userIds.add(userService.create(User.builder()
+                    .name("Пользователь " + i)
+                    .email("user" + i + "@mail.com")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(1990, 1, 1)).build()).getId());
+        }
+        // Фильм 0 лайкнули пользователи 0, 1, 2; вместе с ним фильм 1 лайкнули двое, фильм 2 - один
+        like(0, 0);
+        like(0, 1);
+        like(1, 0);
+        like(1, 1);
+        like(2, 0);
+        like(2, 2);
+        like(3, 3);
+    }
+
+    private void like(int user, int film) {
+        filmService.addUserLikeToFilm(userIds.get(user), filmIds.get(film));
+    }
+
+    private List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void shouldReturnFilmsByCoLikes() {
+        assertEquals(List.of(filmIds.get(1), filmIds.get(2)), ids(controller.getSimilarFilms(filmIds.get(0), 10)));
+        assertEquals(List.of(filmIds.get(1)), ids(controller.getSimilarFilms(filmIds.get(0), 1)));
+        assertEquals(List.of(), ids(controller.getSimilarFilms(filmIds.get(3), 10)));
+
+        // Пользователю 2 фильм 1 рекомендуется через фильм 0, свои фильмы не рекомендуются
+        assertEquals(List.of(filmIds.get(1)), ids(controller.getRecommendations(userIds.get(2), 10)));
+        assertEquals(List.of(), ids(controller.getRecommendations(userIds.get(3), 10)));
+    }
+
+    @Test
+    void shouldUpdateOnUnlikeAndDelete() {
+        filmService.removeUserLikeFromFilm(userIds.get(0), filmIds.get(1));
+        filmService.removeUserLikeFromFilm(userIds.get(1), filmIds.get(1));
+        assertEquals(List.of(filmIds.get(2)), ids(controller.getSimilarFilms(filmIds.get(0), 10)));
+
+        userService.delete(userIds.get(2));
+        assertEquals(List.of(), ids(controller.getSimilarFilms(filmIds.get(0), 10)));
+
+        like(0, 3);
+        filmService.delete(filmIds.get(0));
+        assertEquals(List.of(), ids(controller.getSimilarFilms(filmIds.get(3), 10)));
+    }
+
+    @Test
+    void rebuildShouldKeepSameResult() {
+        List<Integer> similar = ids(controller.getSimilarFilms(filmIds.get(0), 10));
+        List<Integer> recommended = ids(controller.getRecommendations(userIds.get(2), 10));
+        recommendationService.rebuild();
+        assertEquals(similar, ids(controller.getSimilarFilms(filmIds.get(0), 10)));
+        assertEquals(recommended, ids(controller.getRecommendations(userIds.get(2), 10)));
+    }
+
+    @Test
+    void rebuildShouldKeepEventsArrivedDuringRebuild() {
+        // Лайк и удаление лайка приходят после того, как лайки из хранилища уже прочитаны
+        duringRebuild = () -> {
+            like(3, 0);
+            filmService.removeUserLikeFromFilm(userIds.get(2), filmIds.get(2));
+        };
+        recommendationService.rebuild();
+        assertEquals(List.of(filmIds.get(0)), ids(controller.getSimilarFilms(filmIds.get(3), 10)));
+        assertEquals(List.of(filmIds.get(1), filmIds.get(3)), ids(controller.getSimilarFilms(filmIds.get(0), 10)));
+    }
+
+    @Test
+    void shouldFailOnWrongRequests() {
+        Assertions.assertThrows(NotFoundException.class, () -> controller.getSimilarFilms(NOT_EXIST_ID, 10));
+        Assertions.assertThrows(NotFoundException.class, () -> controller.getRecommendations(NOT_EXIST_ID, 10));
+        Assertions.assertThrows(ValidationException.class, () -> controller.getSimilarFilms(filmIds.get(0), 0));
+    }
+}
@@ -1,8 +1,10 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.User;
@@ -18,12 +20,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class UserControllerTest {
     private static final Integer NOT_EXIST_USER_ID = 100500;
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
     private UserController controller;
     private User defaultUser;
 
     @BeforeEach
     void setUp() throws ValidationException {
-        controller = new UserController(new UserService(new InMemoryUserStorage(new InMemoryLikeStorage(), new InMemoryFriendsStorage())));
+        controller = new UserController(new UserService(new InMemoryUserStorage(new InMemoryLikeStorage(), new InMemoryFriendsStorage())), OBJECT_MAPPER);
         defaultUser = User.builder()
                 .name("Обычный пользователь")
                 .email("user@mail.com")
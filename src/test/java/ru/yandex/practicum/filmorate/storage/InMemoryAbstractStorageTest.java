@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.PageCursor;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryAbstractStorageTest {
+    private static final int THREADS = 16;
+    private static final int OBJECTS_PER_THREAD = 2000;
+    private InMemoryAbstractStorage<User> storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryAbstractStorage<>();
+    }
+
+    @Test
+    void shouldGiveUniqueIdsWhenCreatedConcurrently() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < OBJECTS_PER_THREAD; i++) {
+                storage.create(newUser());
+            }
+        });
+
+        List<User> users = storage.findAll();
+        assertEquals(THREADS * OBJECTS_PER_THREAD, users.size());
+        Set<Integer> ids = users.stream().map(User::getId).collect(Collectors.toSet());
+        assertEquals(THREADS * OBJECTS_PER_THREAD, ids.size());
+        assertEquals(1, users.get(0).getId());
+        assertEquals(THREADS * OBJECTS_PER_THREAD, users.get(users.size() - 1).getId());
+    }
+
+    @Test
+    void shouldReturnConsistentSnapshotWhileWriting() throws Exception {
+        // Писатели создают объект и сразу удаляют его, читатели не должны видеть больше объектов, чем писателей
+        int writers = THREADS / 2;
+        runConcurrently(thread -> {
+            for (int i = 0; i < OBJECTS_PER_THREAD; i++) {
+                if (thread < writers) {
+                    User user = storage.create(newUser());
+                    assertTrue(storage.exists(user.getId()));
+                    storage.delete(user.getId());
+                } else {
+                    List<User> snapshot = storage.findAll();
+                    assertTrue(snapshot.size() <= writers);
+                    for (int j = 1; j < snapshot.size(); j++) {
+                        assertTrue(snapshot.get(j - 1).getId() < snapshot.get(j).getId());
+                    }
+                }
+            }
+        });
+
+        assertTrue(storage.findAll().isEmpty());
+    }
+
+    @Test
+    void shouldPageThroughAllObjectsInIdOrder() {
+        // ИД разных частей чередуются, а удаления оставляют в частях дыры
+        for (int i = 0; i < 100; i++) {
+            storage.create(newUser());
+        }
+        for (int id = 3; id <= 100; id += 3) {
+            storage.delete(id);
+        }
+
+        List<User> paged = new ArrayList<>();
+        PageCursor after = null;
+        do {
+            Page<User> page = storage.findPage(after, 7);
+            assertTrue(page.getItems().size() <= 7);
+            paged.addAll(page.getItems());
+            after = PageCursor.decode(page.getNextCursor());
+        } while (after != null);
+        assertEquals(storage.findAll(), paged);
+    }
+
+    private interface Task {
+        void run(int thread);
+    }
+
+    private void runConcurrently(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> calls = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int number = thread;
+                calls.add(() -> {
+                    task.run(number);
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(calls, 1, TimeUnit.MINUTES)) {
+                // Пробрасывает ошибки и несработавшие проверки из потоков
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private User newUser() {
+        return User.builder()
+                .name("Пользователь")
+                .email("user@mail.com")
+                .login("user")
+                .birthday(LocalDate.of(1995, 12, 28))
+                .build();
+    }
+}
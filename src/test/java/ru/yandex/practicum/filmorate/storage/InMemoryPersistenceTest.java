@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class InMemoryPersistenceTest {
+    @TempDir
+    Path directory;
+    private Storages storages;
+
+    private class Storages {
+        private final InMemoryJournal journal = new InMemoryJournal(true, directory.toString());
+        private final InMemoryLikeStorage likeStorage = new InMemoryLikeStorage(journal);
+        private final InMemoryFriendsStorage friendsStorage = new InMemoryFriendsStorage(journal);
+        private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage(likeStorage, journal, null);
+        private final InMemoryUserStorage userStorage = new InMemoryUserStorage(likeStorage, friendsStorage, journal);
+        private final InMemoryPersistence persistence = new InMemoryPersistence(journal, filmStorage, userStorage,
+                likeStorage, friendsStorage, 3_600_000);
+
+        private Storages start() throws Exception {
+            persistence.start();
+            return this;
+        }
+
+        private void stop() throws Exception {
+            persistence.stop();
+            journal.close();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (storages != null) {
+            storages.stop();
+        }
+    }
+
+    @Test
+    void shouldRestoreSnapshotAndJournalTail() throws Exception {
+        storages = new Storages().start();
+        Film film = storages.filmStorage.create(newFilm("Ёлочка"));
+        Film otherFilm = storages.filmStorage.create(newFilm("Роман"));
+        User user = storages.userStorage.create(newUser("first"));
+        User friend = storages.userStorage.create(newUser("second"));
+        storages.filmStorage.addUserLikeToFilm(user.getId(), film.getId());
+        storages.userStorage.addFriendship(user.getId(), friend.getId());
+        storages.persistence.snapshot();
+        // Хвост журнала после снимка
+        storages.filmStorage.addUserLikeToFilm(friend.getId(), otherFilm.getId());
+        storages.filmStorage.addUserLikeToFilm(user.getId(), otherFilm.getId());
+        storages.filmStorage.update(otherFilm.toBuilder().description("Обновлен").build());
+        storages.filmStorage.delete(film.getId());
+        storages.stop();
+
+        storages = new Storages().start();
+        assertEquals(List.of(otherFilm.toBuilder().description("Обновлен").build()), storages.filmStorage.findAll());
+        assertEquals(List.of(user, friend), storages.userStorage.findAll());
+        assertEquals(2, storages.likeStorage.getLikesCount(otherFilm.getId()));
+        assertEquals(0, storages.likeStorage.getLikesCount(film.getId()));
+        assertEquals(List.of(friend.getId()), storages.friendsStorage.getAllFriendIdsByUserId(user.getId()));
+        assertEquals(List.of(otherFilm.getId()), storages.likeStorage.getMostLikedFilmIds(0, 10));
+        // ИД продолжаются после восстановленных
+        assertFalse(storages.userStorage.exists(friend.getId() + 1));
+        assertEquals(friend.getId() + 1, storages.userStorage.create(newUser("third")).getId());
+    }
+
+    @Test
+    void shouldNotReuseIdsDeletedBeforeSnapshot() throws Exception {
+        storages = new Storages().start();
+        storages.filmStorage.create(newFilm("Ёлочка"));
+        Film lastFilm = storages.filmStorage.create(newFilm("Роман"));
+        storages.userStorage.create(newUser("first"));
+        User lastUser = storages.userStorage.create(newUser("second"));
+        storages.filmStorage.delete(lastFilm.getId());
+        storages.userStorage.delete(lastUser.getId());
+        // В снимке нет удаленных объектов, а журнал до снимка удаляется
+        storages.persistence.snapshot();
+        storages.stop();
+
+        storages = new Storages().start();
+        assertEquals(lastFilm.getId() + 1, storages.filmStorage.create(newFilm("Новый")).getId());
+        assertEquals(lastUser.getId() + 1, storages.userStorage.create(newUser("third")).getId());
+    }
+
+    private Film newFilm(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Веселый фильм")
+                .duration(3600)
+                .releaseDate(LocalDate.of(1983, 12, 27))
+                .mpa(Mpa.builder().id(1).build())
+                .genres(List.of(Genre.builder().id(2).build()))
+                .build();
+    }
+
+    private User newUser(String login) {
+        return User.builder()
+                .name("Пользователь")
+                .email(login + "@mail.com")
+                .login(login)
+                .birthday(LocalDate.of(1995, 12, 28))
+                .build();
+    }
+}
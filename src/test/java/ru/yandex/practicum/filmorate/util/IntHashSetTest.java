@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntHashSetTest {
+
+    @Test
+    void shouldBehaveLikeHashSet() {
+        // Небольшой диапазон значений, чтобы было много повторов, удалений и длинных цепочек
+        Random random = new Random(42);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            int value = random.nextInt(2000) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (int value = -100; value < 1900; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).sorted().toArray(), set.toSortedArray());
+    }
+
+    @Test
+    void shouldStoreZero() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertArrayEquals(new int[]{0}, set.toSortedArray());
+        assertTrue(set.remove(0));
+        assertTrue(set.isEmpty());
+    }
+}
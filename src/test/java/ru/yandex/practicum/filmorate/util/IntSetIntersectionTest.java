@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class IntSetIntersectionTest {
+    private final Random random = new Random(7);
+
+    @Test
+    void shouldIntersectSetsOfAnySizes() {
+        // Размеры от пустых до сильно различающихся, чтобы прошли и слияние, и галоп
+        int[] sizes = {0, 1, 5, 64, 1000, 20_000};
+        for (int aSize : sizes) {
+            for (int bSize : sizes) {
+                int[] a = randomSortedSet(aSize, 50_000);
+                int[] b = randomSortedSet(bSize, 50_000);
+                int[] expected = naive(a, b);
+
+                assertArrayEquals(expected, IntSetIntersection.intersect(a, b));
+                assertArrayEquals(expected, IntSetIntersection.merge(a, b));
+                assertArrayEquals(expected, IntSetIntersection.gallop(a, b));
+                assertArrayEquals(expected, IntSetIntersection.intersect(toBitSet(a), toBitSet(b)));
+                assertArrayEquals(expected, IntSetIntersection.intersect(toIntHashSet(a), toIntHashSet(b)));
+                assertArrayEquals(expected, IntSetIntersection.intersect(toIntSortedSet(a), toIntSortedSet(b)));
+            }
+        }
+    }
+
+    private int[] randomSortedSet(int size, int bound) {
+        return random.ints(0, bound).distinct().limit(size).sorted().toArray();
+    }
+
+    private int[] naive(int[] a, int[] b) {
+        return Arrays.stream(a).filter(value -> Arrays.binarySearch(b, value) >= 0).toArray();
+    }
+
+    private BitSet toBitSet(int[] values) {
+        BitSet result = new BitSet();
+        Arrays.stream(values).forEach(result::set);
+        return result;
+    }
+
+    private IntHashSet toIntHashSet(int[] values) {
+        IntHashSet result = new IntHashSet(values.length);
+        Arrays.stream(values).forEach(result::add);
+        return result;
+    }
+
+    private IntSortedSet toIntSortedSet(int[] values) {
+        // Запас в емкости, чтобы пересечение учитывало размер, а не длину массива
+        IntSortedSet result = new IntSortedSet(values.length * 2);
+        Arrays.stream(values).forEach(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntSortedSetTest {
+
+    @Test
+    void shouldBehaveLikeTreeSet() {
+        // Небольшой диапазон значений, чтобы было много повторов, вставок в середину и удалений
+        Random random = new Random(42);
+        IntSortedSet set = new IntSortedSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            int value = random.nextInt(2000) - 100;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (int value = -100; value < 1900; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toSortedArray());
+    }
+}